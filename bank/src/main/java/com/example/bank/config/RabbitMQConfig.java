@@ -1,11 +1,29 @@
 package com.example.bank.config;
 
+import com.example.contracts.codec.CborMessageConverter;
+import com.example.contracts.codec.ContractMessageConverter;
+import com.example.contracts.listener.ListenerTuning;
+import com.example.contracts.retry.DeadLetterController;
+import com.example.contracts.retry.DeadLetters;
+import com.example.contracts.retry.ReliablePublisher;
+import com.example.contracts.retry.RetryRouter;
+import com.example.contracts.retry.RetryTopology;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 public class RabbitMQConfig {
@@ -68,10 +86,52 @@ public class RabbitMQConfig {
                 .with(REFUND_REQUEST_ROUTING_KEY);
     }
 
-    // Message Converter
+    @Value("${messaging.codec:json}")
+    private String codec;
+
+    // Message Converter: consumers accept JSON and CBOR by content type; messaging.codec picks what is sent,
+    // so every consumer can be upgraded before any producer switches to cbor
+    @Bean
+    public MessageConverter messageConverter() {
+        // Contract types use the precompiled codecs; Jackson only handles anything else
+        MessageConverter json = ContractMessageConverter.json(new Jackson2JsonMessageConverter());
+        MessageConverter cbor = ContractMessageConverter.cbor(new CborMessageConverter());
+        ContentTypeDelegatingMessageConverter converter =
+                new ContentTypeDelegatingMessageConverter("cbor".equalsIgnoreCase(codec) ? cbor : json);
+        converter.addDelegate(MessageProperties.CONTENT_TYPE_JSON, json);
+        converter.addDelegate(CborMessageConverter.CONTENT_TYPE, cbor);
+        return converter;
+    }
+
+    // Retry: failed messages wait in TTL retry queues, then go to a DLQ, instead of being requeued at once
+    @Bean
+    public RetryTopology retryTopology(@Value("${messaging.retry.delays-ms:1000,10000,60000}") long[] delaysMs,
+                                       @Value("${messaging.retry.max-attempts:4}") int maxAttempts) {
+        return new RetryTopology(List.of(PAYMENT_REQUEST_QUEUE, REFUND_REQUEST_QUEUE), delaysMs, maxAttempts);
+    }
+
+    @Bean
+    public Declarables retryQueues(RetryTopology retryTopology) {
+        return retryTopology.declarables();
+    }
+
+    @Bean
+    public RetryRouter retryRouter(RetryTopology retryTopology, RabbitTemplate rabbitTemplate,
+                                   @Value("${messaging.retry.confirm-timeout-ms:5000}") long confirmTimeoutMs) {
+        return new RetryRouter(retryTopology, rabbitTemplate, confirmTimeoutMs);
+    }
+
     @Bean
-    public Jackson2JsonMessageConverter messageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public DeadLetters deadLetters(RetryTopology retryTopology, RabbitTemplate rabbitTemplate, AmqpAdmin amqpAdmin,
+                                   @Value("${messaging.retry.confirm-timeout-ms:5000}") long confirmTimeoutMs) {
+        return new DeadLetters(retryTopology, rabbitTemplate, amqpAdmin, confirmTimeoutMs);
+    }
+
+    // No user accounts here: admins send messaging.dead-letters.admin-token in X-Admin-Token
+    @Bean
+    public DeadLetterController deadLetterController(DeadLetters deadLetters,
+                                                     @Value("${messaging.dead-letters.admin-token:}") String adminToken) {
+        return new DeadLetterController(deadLetters, DeadLetterController.adminToken(adminToken));
     }
 
     // RabbitTemplate
@@ -79,7 +139,39 @@ public class RabbitMQConfig {
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
         template.setMessageConverter(messageConverter());
+        // Unroutable messages come back to the publisher instead of being dropped
+        template.setMandatory(true);
         return template;
     }
-}
 
+    // Confirmed, retried publishes; give-ups go to the DLQ of the consuming queue
+    @Bean
+    public ReliablePublisher reliablePublisher(RabbitTemplate rabbitTemplate, MeterRegistry meterRegistry,
+                                               @Value("${messaging.publisher.max-attempts:5}") int maxAttempts,
+                                               @Value("${messaging.publisher.initial-backoff-ms:200}") long initialBackoffMs,
+                                               @Value("${messaging.publisher.max-backoff-ms:10000}") long maxBackoffMs,
+                                               @Value("${messaging.publisher.confirm-timeout-ms:10000}") long confirmTimeoutMs) {
+        return new ReliablePublisher(rabbitTemplate, meterRegistry, Map.of(PAYMENT_RESPONSE_ROUTING_KEY, PAYMENT_RESPONSE_QUEUE),
+                maxAttempts, initialBackoffMs, maxBackoffMs, confirmTimeoutMs);
+    }
+
+    // Consumers, prefetch and executor per queue come from messaging.listeners.* (see ListenerTuning)
+    @Bean
+    public ListenerTuning listenerTuning(Environment environment, AmqpAdmin amqpAdmin,
+                                         RabbitListenerEndpointRegistry registry,
+                                         @Value("${messaging.listeners.scale-interval-ms:5000}") long scaleIntervalMs) {
+        return new ListenerTuning(environment, amqpAdmin, registry, scaleIntervalMs);
+    }
+
+    @Bean
+    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory,
+                                                                               ListenerTuning listenerTuning,
+                                                                               RetryRouter retryRouter) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(messageConverter());
+        factory.setContainerCustomizer(listenerTuning::apply);
+        factory.setAdviceChain(retryRouter);
+        return factory;
+    }
+}
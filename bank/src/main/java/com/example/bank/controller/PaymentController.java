@@ -1,7 +1,7 @@
 package com.example.bank.controller;
 
-import com.example.bank.dto.PaymentRequestMessage;
-import com.example.bank.dto.RefundRequestMessage;
+import com.example.contracts.PaymentRequestMessage;
+import com.example.contracts.RefundRequestMessage;
 import com.example.bank.service.PaymentService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -25,7 +25,7 @@ public class PaymentController {
         PaymentService.PaymentResult result = paymentService.processPayment(request);
         return ResponseEntity.ok(Map.of(
                 "status", result.getStatus(),
-                "orderId", request.getOrderId(),
+                "orderId", request.orderId(),
                 "transactionId", result.getTransactionId() != null ? result.getTransactionId() : "",
                 "message", result.getMessage()
         ));
@@ -37,7 +37,7 @@ public class PaymentController {
         paymentService.processRefund(request);
         return ResponseEntity.accepted().body(Map.of(
                 "status", "ACCEPTED",
-                "orderId", request.getOrderId()
+                "orderId", request.orderId()
         ));
     }
 }
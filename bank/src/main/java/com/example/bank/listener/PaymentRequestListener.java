@@ -2,8 +2,10 @@ package com.example.bank.listener;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Component;
-import com.example.bank.dto.PaymentRequestMessage;
+import org.springframework.transaction.TransactionException;
+import com.example.contracts.PaymentRequestMessage;
 import com.example.bank.service.PaymentService;
 
 @Component
@@ -16,9 +18,12 @@ public class PaymentRequestListener {
     public void handlePaymentRequest(PaymentRequestMessage request) {
         try {
             paymentService.processPayment(request);
+        } catch (DataAccessException | TransactionException e) {
+            // Database unavailable or contended: rethrown so the message is retried later, not failed
+            throw e;
         } catch (Exception e) {
             paymentService.sendPaymentResponse(
-                request.getOrderId(), 
+                request.orderId(), 
                 "FAILED", 
                 null, 
                 "Payment processing failed: " + e.getMessage()
@@ -41,6 +41,10 @@ public class BankTransaction {
     
     @Column(name = "transaction_date")
     private LocalDateTime transactionDate;
+
+    // Idempotency key of the payment or refund request that made this transfer; a resent request finds it
+    @Column(name = "request_key", length = 100, unique = true)
+    private String requestKey;
     
     @ManyToOne
     @JoinColumn(name = "from_account", referencedColumnName = "account_number", insertable = false, updatable = false)
@@ -4,8 +4,11 @@ import com.example.bank.model.BankTransaction;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface BankTransactionRepository extends JpaRepository<BankTransaction, Integer> {
+    Optional<BankTransaction> findByRequestKey(String requestKey);
 }
 
 
@@ -3,8 +3,8 @@ package com.example.bank.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import com.example.bank.dto.PaymentRequestMessage;
-import com.example.bank.dto.RefundRequestMessage;
+import com.example.contracts.PaymentRequestMessage;
+import com.example.contracts.RefundRequestMessage;
 import com.example.bank.model.BankAccount;
 import com.example.bank.model.BankTransaction;
 import com.example.bank.model.TransactionStatus;
@@ -13,6 +13,7 @@ import com.example.bank.repository.BankTransactionRepository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -24,18 +25,27 @@ public class PaymentService {
 
     @Transactional
     public PaymentResult processPayment(PaymentRequestMessage request) {
+        lockAccounts(request.fromAccount(), request.toAccount());
+
+        // Requests arrive at least once (outbox resends, REST retries): a repeat finds the transfer it already made
+        String requestKey = request.requestId() != null ? request.requestId() : "payment-order-" + request.orderId();
+        Optional<BankTransaction> processed = transactionRepository.findByRequestKey(requestKey);
+        if (processed.isPresent()) {
+            return new PaymentResult("SUCCESS", processed.get().getId().toString(), "Payment already processed");
+        }
+
         // 1. get accounts
-        BankAccount fromAccount = accountRepository.findByAccountNumber(request.getFromAccount())
-                .orElseThrow(() -> new RuntimeException("From account not found: " + request.getFromAccount()));
+        BankAccount fromAccount = accountRepository.findByAccountNumber(request.fromAccount())
+                .orElseThrow(() -> new RuntimeException("From account not found: " + request.fromAccount()));
         
-        BankAccount toAccount = accountRepository.findByAccountNumber(request.getToAccount())
-                .orElseThrow(() -> new RuntimeException("To account not found: " + request.getToAccount()));
+        BankAccount toAccount = accountRepository.findByAccountNumber(request.toAccount())
+                .orElseThrow(() -> new RuntimeException("To account not found: " + request.toAccount()));
 
         // 2. check balance
-        BigDecimal amount = BigDecimal.valueOf(request.getAmount());
+        BigDecimal amount = BigDecimal.valueOf(request.amount());
         if (fromAccount.getBalance().compareTo(amount) < 0) {
             PaymentResult result = new PaymentResult("FAILED", null, "Insufficient balance");
-            sendPaymentResponse(request.getOrderId(), result.getStatus(), result.getTransactionId(), result.getMessage());
+            sendPaymentResponse(request.orderId(), result.getStatus(), result.getTransactionId(), result.getMessage());
             return result;
         }
 
@@ -51,27 +61,40 @@ public class PaymentService {
             
             // 4. create transaction record
             BankTransaction transaction = new BankTransaction();
-            transaction.setFromAccount(request.getFromAccount());
-            transaction.setToAccount(request.getToAccount());
+            transaction.setFromAccount(request.fromAccount());
+            transaction.setToAccount(request.toAccount());
             transaction.setAmount(amount);
             transaction.setStatus(TransactionStatus.COMPLETED);
             transaction.setTransactionDate(LocalDateTime.now());
-            transaction.setOrderId(request.getOrderId());
+            transaction.setOrderId(request.orderId());
+            transaction.setRequestKey(requestKey);
             
             BankTransaction savedTransaction = transactionRepository.save(transaction);
             
             // 5. send success message
             PaymentResult result = new PaymentResult("SUCCESS", savedTransaction.getId().toString(), "Payment successful");
-            sendPaymentResponse(request.getOrderId(), result.getStatus(), result.getTransactionId(), result.getMessage());
+            sendPaymentResponse(request.orderId(), result.getStatus(), result.getTransactionId(), result.getMessage());
             return result;
             
         } catch (Exception e) {
             PaymentResult result = new PaymentResult("FAILED", null, "Payment failed: " + e.getMessage());
-            sendPaymentResponse(request.getOrderId(), result.getStatus(), result.getTransactionId(), result.getMessage());
+            sendPaymentResponse(request.orderId(), result.getStatus(), result.getTransactionId(), result.getMessage());
             return result;
         }
     }
     
+    // Payments run on several consumers at once and all credit the store account: lock both rows, always in
+    // account-number order, so concurrent transfers neither lose updates nor deadlock. Two deliveries of the same
+    // request take the same locks, so the second one sees the request_key the first committed
+    private void lockAccounts(String fromAccount, String toAccount) {
+        if (fromAccount == null || toAccount == null) {
+            return;
+        }
+        boolean fromFirst = fromAccount.compareTo(toAccount) <= 0;
+        accountRepository.findByAccountNumberForUpdate(fromFirst ? fromAccount : toAccount);
+        accountRepository.findByAccountNumberForUpdate(fromFirst ? toAccount : fromAccount);
+    }
+
     // Inner class to hold payment result
     public static class PaymentResult {
         private String status;
@@ -91,17 +114,26 @@ public class PaymentService {
 
     @Transactional
     public void processRefund(RefundRequestMessage request) {
+        lockAccounts(request.fromAccount(), request.toAccount());
+
+        // A transaction is refunded once, however often the request is delivered
+        String requestKey = "refund-" + (request.transactionId() != null
+                ? request.transactionId() : "order-" + request.orderId());
+        if (transactionRepository.findByRequestKey(requestKey).isPresent()) {
+            return;
+        }
+
         // 1. get accounts
-        BankAccount fromAccount = accountRepository.findByAccountNumber(request.getFromAccount())
-                .orElseThrow(() -> new RuntimeException("From account not found: " + request.getFromAccount()));
+        BankAccount fromAccount = accountRepository.findByAccountNumber(request.fromAccount())
+                .orElseThrow(() -> new RuntimeException("From account not found: " + request.fromAccount()));
         
-        BankAccount toAccount = accountRepository.findByAccountNumber(request.getToAccount())
-                .orElseThrow(() -> new RuntimeException("To account not found: " + request.getToAccount()));
+        BankAccount toAccount = accountRepository.findByAccountNumber(request.toAccount())
+                .orElseThrow(() -> new RuntimeException("To account not found: " + request.toAccount()));
 
         // 2. check balance
-        BigDecimal amount = BigDecimal.valueOf(request.getAmount());
+        BigDecimal amount = BigDecimal.valueOf(request.amount());
         if (fromAccount.getBalance().compareTo(amount) < 0) {
-            sendPaymentResponse(request.getOrderId(), "FAILED", null, "Insufficient balance for refund");
+            sendPaymentResponse(request.orderId(), "FAILED", null, "Insufficient balance for refund");
             return;
         }
 
@@ -117,25 +149,26 @@ public class PaymentService {
             
             // 4. create transaction record
             BankTransaction transaction = new BankTransaction();
-            transaction.setFromAccount(request.getFromAccount());
-            transaction.setToAccount(request.getToAccount());
+            transaction.setFromAccount(request.fromAccount());
+            transaction.setToAccount(request.toAccount());
             transaction.setAmount(amount);
             transaction.setStatus(TransactionStatus.COMPLETED);
             transaction.setTransactionDate(LocalDateTime.now());
-            transaction.setOrderId(request.getOrderId());
+            transaction.setOrderId(request.orderId());
+            transaction.setRequestKey(requestKey);
             
             BankTransaction savedTransaction = transactionRepository.save(transaction);
             
             // 5. send success message
             sendPaymentResponse(
-                request.getOrderId(), 
+                request.orderId(), 
                 "SUCCESS", 
                 savedTransaction.getId().toString(), 
                 "Refund successful"
             );
             
         } catch (Exception e) {
-            sendPaymentResponse(request.getOrderId(), "FAILED", null, "Refund failed: " + e.getMessage());
+            sendPaymentResponse(request.orderId(), "FAILED", null, "Refund failed: " + e.getMessage());
         }
     }
 
@@ -1,16 +1,16 @@
 package com.example.bank.service;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Service;
-import com.example.bank.dto.PaymentResponseMessage;
+import com.example.contracts.PaymentResponseMessage;
 import com.example.bank.config.RabbitMQConfig;
+import com.example.contracts.retry.ReliablePublisher;
 
 @Service
 @RequiredArgsConstructor
 public class RabbitMQService {
 
-    private final RabbitTemplate rabbitTemplate;
+    private final ReliablePublisher reliablePublisher;
 
     public void sendPaymentResponse(Integer orderId, String status, String transactionId, String message) {
         PaymentResponseMessage response = new PaymentResponseMessage(
@@ -20,7 +20,8 @@ public class RabbitMQService {
             message
         );
         
-        rabbitTemplate.convertAndSend(
+        // Confirmed and retried in the background; the payment transaction does not wait for the broker
+        reliablePublisher.publish(
             RabbitMQConfig.BANK_EXCHANGE,
             RabbitMQConfig.PAYMENT_RESPONSE_ROUTING_KEY,
             response
@@ -0,0 +1,10 @@
+package com.example.contracts;
+
+/**
+ * Store to deliveryco, on delivery.request, once an order is paid.
+ */
+public record DeliveryRequestMessage(Integer orderId, String deliveryAddress, String customerEmail,
+                                     String customerName, String itemName, Integer quantity, Long timestamp) {
+
+    public static final int SCHEMA_VERSION = 1;
+}
@@ -0,0 +1,13 @@
+package com.example.contracts;
+
+/**
+ * Deliveryco to store, on delivery.status.
+ *
+ * @param status   received, picked_up, in_transit, delivered, lost or cancelled
+ * @param sequence per order, increases with every status change; null from senders that do not number them
+ */
+public record DeliveryStatusMessage(Integer orderId, String status, String message, Long timestamp,
+                                    String trackingId, Long sequence) {
+
+    public static final int SCHEMA_VERSION = 1;
+}
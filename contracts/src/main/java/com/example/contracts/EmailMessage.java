@@ -0,0 +1,9 @@
+package com.example.contracts;
+
+/**
+ * Store or deliveryco to email, on email.request.
+ */
+public record EmailMessage(String orderId, String toAddress, String subject, String body, String status) {
+
+    public static final int SCHEMA_VERSION = 1;
+}
@@ -0,0 +1,12 @@
+package com.example.contracts;
+
+/**
+ * Store to bank, on payment.request or POST /api/bank/payments.
+ *
+ * @param requestId idempotency key, so a resent request is not charged twice
+ */
+public record PaymentRequestMessage(Integer orderId, String fromAccount, String toAccount, Double amount,
+                                    String requestId) {
+
+    public static final int SCHEMA_VERSION = 1;
+}
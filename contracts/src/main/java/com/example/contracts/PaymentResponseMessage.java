@@ -0,0 +1,11 @@
+package com.example.contracts;
+
+/**
+ * Bank to store, on payment.response, for payments and refunds alike.
+ *
+ * @param status SUCCESS or FAILED; PENDING only in REST answers whose outcome follows on payment.response
+ */
+public record PaymentResponseMessage(Integer orderId, String status, String transactionId, String message) {
+
+    public static final int SCHEMA_VERSION = 1;
+}
@@ -0,0 +1,10 @@
+package com.example.contracts;
+
+/**
+ * Store to bank, on refund.request: moves {@code amount} back from the store account to the customer.
+ */
+public record RefundRequestMessage(Integer orderId, String fromAccount, String toAccount, Double amount,
+                                   String transactionId) {
+
+    public static final int SCHEMA_VERSION = 1;
+}
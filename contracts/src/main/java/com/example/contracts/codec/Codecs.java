@@ -0,0 +1,46 @@
+package com.example.contracts.codec;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The codec of every contract type, looked up by class or by the type id header sent with each message.
+ */
+public final class Codecs {
+
+    private static final List<MessageCodec<?>> ALL = List.of(
+            new PaymentRequestCodec(),
+            new RefundRequestCodec(),
+            new PaymentResponseCodec(),
+            new DeliveryRequestCodec(),
+            new DeliveryStatusCodec(),
+            new EmailCodec());
+
+    private static final Map<Class<?>, MessageCodec<?>> BY_TYPE = ALL.stream()
+            .collect(Collectors.toUnmodifiableMap(MessageCodec::type, Function.identity()));
+
+    private static final Map<String, MessageCodec<?>> BY_TYPE_ID = ALL.stream()
+            .collect(Collectors.toUnmodifiableMap(codec -> codec.type().getName(), Function.identity()));
+
+    private Codecs() {
+    }
+
+    /**
+     * Codec for a contract type, or null for any other class.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> MessageCodec<T> forType(Class<T> type) {
+        return (MessageCodec<T>) BY_TYPE.get(type);
+    }
+
+    public static MessageCodec<?> forTypeId(String typeId) {
+        return BY_TYPE_ID.get(typeId);
+    }
+
+    public static Collection<MessageCodec<?>> all() {
+        return ALL;
+    }
+}
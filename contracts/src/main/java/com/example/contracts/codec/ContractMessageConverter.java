@@ -0,0 +1,96 @@
+package com.example.contracts.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * AMQP converter for the contract types, one instance per wire format. Payloads and listener arguments that
+ * are not contracts go to {@code fallback}, usually the Jackson converter for the same content type.
+ * <p>
+ * The type id header holds the contract class name and {@value #SCHEMA_VERSION_HEADER} its version, so
+ * messages can be routed or inspected without decoding the body.
+ */
+public class ContractMessageConverter implements MessageConverter {
+
+    public static final String CBOR_CONTENT_TYPE = "application/cbor";
+    public static final String SCHEMA_VERSION_HEADER = "contract-schema-version";
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    private final JsonFactory factory;
+    private final String contentType;
+    private final MessageConverter fallback;
+
+    public ContractMessageConverter(JsonFactory factory, String contentType, MessageConverter fallback) {
+        this.factory = factory;
+        this.contentType = contentType;
+        this.fallback = fallback;
+    }
+
+    public static ContractMessageConverter json(MessageConverter fallback) {
+        return new ContractMessageConverter(new JsonFactory(), MessageProperties.CONTENT_TYPE_JSON, fallback);
+    }
+
+    public static ContractMessageConverter cbor(MessageConverter fallback) {
+        return new ContractMessageConverter(new CBORFactory(), CBOR_CONTENT_TYPE, fallback);
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        @SuppressWarnings("unchecked")
+        MessageCodec<Object> codec = (MessageCodec<Object>) Codecs.forType(object.getClass());
+        if (codec == null) {
+            return fallback.toMessage(object, messageProperties);
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        try (JsonGenerator out = factory.createGenerator(body)) {
+            codec.write(object, out);
+        } catch (IOException e) {
+            throw new MessageConversionException("Failed to encode " + codec.type().getSimpleName(), e);
+        }
+        byte[] bytes = body.toByteArray();
+        messageProperties.setContentType(contentType);
+        if (!factory.canHandleBinaryNatively()) {
+            messageProperties.setContentEncoding(StandardCharsets.UTF_8.name());
+        }
+        messageProperties.setContentLength(bytes.length);
+        messageProperties.setHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME, codec.type().getName());
+        messageProperties.setHeader(SCHEMA_VERSION_HEADER, codec.schemaVersion());
+        return new Message(bytes, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        MessageCodec<?> codec = codecFor(message.getMessageProperties());
+        if (codec == null) {
+            return fallback.fromMessage(message);
+        }
+        try (JsonParser in = factory.createParser(message.getBody())) {
+            return codec.read(in);
+        } catch (IOException e) {
+            throw new MessageConversionException("Failed to decode " + codec.type().getSimpleName(), e);
+        }
+    }
+
+    // The listener's argument type wins, so messages from senders with their own class names still decode
+    private static MessageCodec<?> codecFor(MessageProperties properties) {
+        Type inferred = properties.getInferredArgumentType();
+        if (inferred instanceof Class<?> type) {
+            return Codecs.forType(type);
+        }
+        Object typeId = properties.getHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME);
+        return typeId != null ? Codecs.forTypeId(typeId.toString()) : null;
+    }
+}
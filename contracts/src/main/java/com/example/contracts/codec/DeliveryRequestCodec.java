@@ -0,0 +1,50 @@
+package com.example.contracts.codec;
+
+import com.example.contracts.DeliveryRequestMessage;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+final class DeliveryRequestCodec extends MessageCodec<DeliveryRequestMessage> {
+
+    DeliveryRequestCodec() {
+        super(DeliveryRequestMessage.class, DeliveryRequestMessage.SCHEMA_VERSION);
+    }
+
+    @Override
+    protected void writeFields(DeliveryRequestMessage value, JsonGenerator out) throws IOException {
+        writeInteger(out, "orderId", value.orderId());
+        writeString(out, "deliveryAddress", value.deliveryAddress());
+        writeString(out, "customerEmail", value.customerEmail());
+        writeString(out, "customerName", value.customerName());
+        writeString(out, "itemName", value.itemName());
+        writeInteger(out, "quantity", value.quantity());
+        writeLong(out, "timestamp", value.timestamp());
+    }
+
+    @Override
+    protected DeliveryRequestMessage readFields(JsonParser in) throws IOException {
+        Integer orderId = null;
+        String deliveryAddress = null;
+        String customerEmail = null;
+        String customerName = null;
+        String itemName = null;
+        Integer quantity = null;
+        Long timestamp = null;
+        for (String field = nextField(in); field != null; field = nextField(in)) {
+            switch (field) {
+                case "orderId" -> orderId = readInteger(in);
+                case "deliveryAddress" -> deliveryAddress = readString(in);
+                case "customerEmail" -> customerEmail = readString(in);
+                case "customerName" -> customerName = readString(in);
+                case "itemName" -> itemName = readString(in);
+                case "quantity" -> quantity = readInteger(in);
+                case "timestamp" -> timestamp = readLong(in);
+                default -> skip(in);
+            }
+        }
+        return new DeliveryRequestMessage(orderId, deliveryAddress, customerEmail, customerName, itemName,
+                quantity, timestamp);
+    }
+}
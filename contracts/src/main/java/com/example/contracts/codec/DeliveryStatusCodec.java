@@ -0,0 +1,46 @@
+package com.example.contracts.codec;
+
+import com.example.contracts.DeliveryStatusMessage;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+final class DeliveryStatusCodec extends MessageCodec<DeliveryStatusMessage> {
+
+    DeliveryStatusCodec() {
+        super(DeliveryStatusMessage.class, DeliveryStatusMessage.SCHEMA_VERSION);
+    }
+
+    @Override
+    protected void writeFields(DeliveryStatusMessage value, JsonGenerator out) throws IOException {
+        writeInteger(out, "orderId", value.orderId());
+        writeString(out, "status", value.status());
+        writeString(out, "message", value.message());
+        writeLong(out, "timestamp", value.timestamp());
+        writeString(out, "trackingId", value.trackingId());
+        writeLong(out, "sequence", value.sequence());
+    }
+
+    @Override
+    protected DeliveryStatusMessage readFields(JsonParser in) throws IOException {
+        Integer orderId = null;
+        String status = null;
+        String message = null;
+        Long timestamp = null;
+        String trackingId = null;
+        Long sequence = null;
+        for (String field = nextField(in); field != null; field = nextField(in)) {
+            switch (field) {
+                case "orderId" -> orderId = readInteger(in);
+                case "status" -> status = readString(in);
+                case "message" -> message = readString(in);
+                case "timestamp" -> timestamp = readLong(in);
+                case "trackingId" -> trackingId = readString(in);
+                case "sequence" -> sequence = readLong(in);
+                default -> skip(in);
+            }
+        }
+        return new DeliveryStatusMessage(orderId, status, message, timestamp, trackingId, sequence);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.contracts.codec;
+
+import com.example.contracts.EmailMessage;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+final class EmailCodec extends MessageCodec<EmailMessage> {
+
+    EmailCodec() {
+        super(EmailMessage.class, EmailMessage.SCHEMA_VERSION);
+    }
+
+    @Override
+    protected void writeFields(EmailMessage value, JsonGenerator out) throws IOException {
+        writeString(out, "orderId", value.orderId());
+        writeString(out, "toAddress", value.toAddress());
+        writeString(out, "subject", value.subject());
+        writeString(out, "body", value.body());
+        writeString(out, "status", value.status());
+    }
+
+    @Override
+    protected EmailMessage readFields(JsonParser in) throws IOException {
+        String orderId = null;
+        String toAddress = null;
+        String subject = null;
+        String body = null;
+        String status = null;
+        for (String field = nextField(in); field != null; field = nextField(in)) {
+            switch (field) {
+                case "orderId" -> orderId = readString(in);
+                case "toAddress" -> toAddress = readString(in);
+                case "subject" -> subject = readString(in);
+                case "body" -> body = readString(in);
+                case "status" -> status = readString(in);
+                default -> skip(in);
+            }
+        }
+        return new EmailMessage(orderId, toAddress, subject, body, status);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.contracts.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Writes and reads one contract type field by field on Jackson's streaming API, without databind or
+ * reflection, so the same code serves JSON and CBOR.
+ * <p>
+ * Every object carries {@value #SCHEMA_VERSION_FIELD}. Adding an optional field keeps the version, since
+ * readers skip fields they do not know and leave missing ones null; only an incompatible change bumps it,
+ * and readers then refuse versions newer than their own instead of misreading them.
+ */
+public abstract class MessageCodec<T> {
+
+    public static final String SCHEMA_VERSION_FIELD = "schemaVersion";
+
+    private final Class<T> type;
+    private final int schemaVersion;
+
+    protected MessageCodec(Class<T> type, int schemaVersion) {
+        this.type = type;
+        this.schemaVersion = schemaVersion;
+    }
+
+    public Class<T> type() {
+        return type;
+    }
+
+    public int schemaVersion() {
+        return schemaVersion;
+    }
+
+    public final void write(T value, JsonGenerator out) throws IOException {
+        out.writeStartObject();
+        out.writeNumberField(SCHEMA_VERSION_FIELD, schemaVersion);
+        writeFields(value, out);
+        out.writeEndObject();
+    }
+
+    public final T read(JsonParser in) throws IOException {
+        if (in.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(in, "Expected a " + type.getSimpleName() + " object");
+        }
+        return readFields(in);
+    }
+
+    protected abstract void writeFields(T value, JsonGenerator out) throws IOException;
+
+    /**
+     * Reads the fields of an object whose start was consumed, typically by looping over {@link #nextField}.
+     */
+    protected abstract T readFields(JsonParser in) throws IOException;
+
+    /**
+     * Name of the next field with the parser on its value, or null at the end of the object.
+     * The schema version is checked here and never returned.
+     */
+    protected final String nextField(JsonParser in) throws IOException {
+        while (in.nextToken() == JsonToken.FIELD_NAME) {
+            String field = in.currentName();
+            in.nextToken();
+            if (!SCHEMA_VERSION_FIELD.equals(field)) {
+                return field;
+            }
+            int version = in.getIntValue();
+            if (version > schemaVersion) {
+                throw new JsonParseException(in, type.getSimpleName() + " schema version " + version
+                        + " is newer than the supported version " + schemaVersion);
+            }
+        }
+        return null;
+    }
+
+    protected static void skip(JsonParser in) throws IOException {
+        in.skipChildren();
+    }
+
+    protected static String readString(JsonParser in) throws IOException {
+        return in.currentToken() == JsonToken.VALUE_NULL ? null : in.getValueAsString();
+    }
+
+    protected static Integer readInteger(JsonParser in) throws IOException {
+        return in.currentToken() == JsonToken.VALUE_NULL ? null : in.getIntValue();
+    }
+
+    protected static Long readLong(JsonParser in) throws IOException {
+        return in.currentToken() == JsonToken.VALUE_NULL ? null : in.getLongValue();
+    }
+
+    protected static Double readDouble(JsonParser in) throws IOException {
+        return in.currentToken() == JsonToken.VALUE_NULL ? null : in.getDoubleValue();
+    }
+
+    // Null fields are left out; readers treat missing and null alike
+
+    protected static void writeString(JsonGenerator out, String field, String value) throws IOException {
+        if (value != null) {
+            out.writeStringField(field, value);
+        }
+    }
+
+    protected static void writeInteger(JsonGenerator out, String field, Integer value) throws IOException {
+        if (value != null) {
+            out.writeNumberField(field, value);
+        }
+    }
+
+    protected static void writeLong(JsonGenerator out, String field, Long value) throws IOException {
+        if (value != null) {
+            out.writeNumberField(field, value);
+        }
+    }
+
+    protected static void writeDouble(JsonGenerator out, String field, Double value) throws IOException {
+        if (value != null) {
+            out.writeNumberField(field, value);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.contracts.codec;
+
+import com.example.contracts.PaymentRequestMessage;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+final class PaymentRequestCodec extends MessageCodec<PaymentRequestMessage> {
+
+    PaymentRequestCodec() {
+        super(PaymentRequestMessage.class, PaymentRequestMessage.SCHEMA_VERSION);
+    }
+
+    @Override
+    protected void writeFields(PaymentRequestMessage value, JsonGenerator out) throws IOException {
+        writeInteger(out, "orderId", value.orderId());
+        writeString(out, "fromAccount", value.fromAccount());
+        writeString(out, "toAccount", value.toAccount());
+        writeDouble(out, "amount", value.amount());
+        writeString(out, "requestId", value.requestId());
+    }
+
+    @Override
+    protected PaymentRequestMessage readFields(JsonParser in) throws IOException {
+        Integer orderId = null;
+        String fromAccount = null;
+        String toAccount = null;
+        Double amount = null;
+        String requestId = null;
+        for (String field = nextField(in); field != null; field = nextField(in)) {
+            switch (field) {
+                case "orderId" -> orderId = readInteger(in);
+                case "fromAccount" -> fromAccount = readString(in);
+                case "toAccount" -> toAccount = readString(in);
+                case "amount" -> amount = readDouble(in);
+                case "requestId" -> requestId = readString(in);
+                default -> skip(in);
+            }
+        }
+        return new PaymentRequestMessage(orderId, fromAccount, toAccount, amount, requestId);
+    }
+}
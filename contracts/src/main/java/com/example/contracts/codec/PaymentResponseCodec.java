@@ -0,0 +1,40 @@
+package com.example.contracts.codec;
+
+import com.example.contracts.PaymentResponseMessage;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+final class PaymentResponseCodec extends MessageCodec<PaymentResponseMessage> {
+
+    PaymentResponseCodec() {
+        super(PaymentResponseMessage.class, PaymentResponseMessage.SCHEMA_VERSION);
+    }
+
+    @Override
+    protected void writeFields(PaymentResponseMessage value, JsonGenerator out) throws IOException {
+        writeInteger(out, "orderId", value.orderId());
+        writeString(out, "status", value.status());
+        writeString(out, "transactionId", value.transactionId());
+        writeString(out, "message", value.message());
+    }
+
+    @Override
+    protected PaymentResponseMessage readFields(JsonParser in) throws IOException {
+        Integer orderId = null;
+        String status = null;
+        String transactionId = null;
+        String message = null;
+        for (String field = nextField(in); field != null; field = nextField(in)) {
+            switch (field) {
+                case "orderId" -> orderId = readInteger(in);
+                case "status" -> status = readString(in);
+                case "transactionId" -> transactionId = readString(in);
+                case "message" -> message = readString(in);
+                default -> skip(in);
+            }
+        }
+        return new PaymentResponseMessage(orderId, status, transactionId, message);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.contracts.codec;
+
+import com.example.contracts.RefundRequestMessage;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+final class RefundRequestCodec extends MessageCodec<RefundRequestMessage> {
+
+    RefundRequestCodec() {
+        super(RefundRequestMessage.class, RefundRequestMessage.SCHEMA_VERSION);
+    }
+
+    @Override
+    protected void writeFields(RefundRequestMessage value, JsonGenerator out) throws IOException {
+        writeInteger(out, "orderId", value.orderId());
+        writeString(out, "fromAccount", value.fromAccount());
+        writeString(out, "toAccount", value.toAccount());
+        writeDouble(out, "amount", value.amount());
+        writeString(out, "transactionId", value.transactionId());
+    }
+
+    @Override
+    protected RefundRequestMessage readFields(JsonParser in) throws IOException {
+        Integer orderId = null;
+        String fromAccount = null;
+        String toAccount = null;
+        Double amount = null;
+        String transactionId = null;
+        for (String field = nextField(in); field != null; field = nextField(in)) {
+            switch (field) {
+                case "orderId" -> orderId = readInteger(in);
+                case "fromAccount" -> fromAccount = readString(in);
+                case "toAccount" -> toAccount = readString(in);
+                case "amount" -> amount = readDouble(in);
+                case "transactionId" -> transactionId = readString(in);
+                default -> skip(in);
+            }
+        }
+        return new RefundRequestMessage(orderId, fromAccount, toAccount, amount, transactionId);
+    }
+}
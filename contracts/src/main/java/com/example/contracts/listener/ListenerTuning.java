@@ -0,0 +1,138 @@
+package com.example.contracts.listener;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.env.PropertyResolver;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-queue settings for the listener containers, read from messaging.listeners.&lt;queue&gt;.* with
+ * messaging.listeners.default.* as fallback: concurrency, max-concurrency (0 = one consumer per CPU),
+ * prefetch, executor-threads (0 = a new thread per consumer) and adaptive. Adaptive queues get their
+ * consumer count set from the queue depth every few seconds, between concurrency and max-concurrency.
+ */
+@Slf4j
+public class ListenerTuning implements InitializingBean, DisposableBean {
+
+    private static final String PREFIX = "messaging.listeners.";
+
+    private final PropertyResolver properties;
+    private final AmqpAdmin amqpAdmin;
+    private final RabbitListenerEndpointRegistry registry;
+    private final long scaleIntervalMs;
+    private final Map<String, Settings> settings = new ConcurrentHashMap<>();
+    private final Map<String, Integer> consumers = new ConcurrentHashMap<>();
+    private final List<ThreadPoolTaskExecutor> executors = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scaler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "listener-scaler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ListenerTuning(PropertyResolver properties, AmqpAdmin amqpAdmin, RabbitListenerEndpointRegistry registry,
+                          long scaleIntervalMs) {
+        this.properties = properties;
+        this.amqpAdmin = amqpAdmin;
+        this.registry = registry;
+        this.scaleIntervalMs = scaleIntervalMs;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        scaler.scheduleWithFixedDelay(this::rescale, scaleIntervalMs, scaleIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Container customizer for the listener container factory. */
+    public void apply(SimpleMessageListenerContainer container) {
+        String queue = container.getQueueNames()[0];
+        int maxConcurrency = setting(queue, "max-concurrency", 0);
+        if (maxConcurrency <= 0) {
+            maxConcurrency = Runtime.getRuntime().availableProcessors();
+        }
+        int executorThreads = setting(queue, "executor-threads", 0);
+        if (executorThreads > 0) {
+            // Consumers hold their thread for life, so the pool bounds the consumer count
+            maxConcurrency = Math.min(maxConcurrency, executorThreads);
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setCorePoolSize(executorThreads);
+            executor.setMaxPoolSize(executorThreads);
+            executor.setQueueCapacity(0);
+            executor.setThreadNamePrefix(queue + "-");
+            executor.initialize();
+            executors.add(executor);
+            container.setTaskExecutor(executor);
+        }
+        int concurrency = Math.min(Math.max(1, setting(queue, "concurrency", 1)), maxConcurrency);
+        container.setMaxConcurrentConsumers(maxConcurrency);
+        container.setConcurrentConsumers(concurrency);
+        int prefetch = setting(queue, "prefetch", 250);
+        container.setPrefetchCount(prefetch);
+        boolean adaptive = Boolean.parseBoolean(property(queue, "adaptive", "false"));
+        settings.put(queue, new Settings(concurrency, maxConcurrency, adaptive,
+                Math.max(1, setting(queue, "messages-per-consumer", 100))));
+        consumers.put(queue, concurrency);
+        log.info("Listener for {}: {}..{} consumers, prefetch {}, adaptive {}",
+                queue, concurrency, maxConcurrency, prefetch, adaptive);
+    }
+
+    @Override
+    public void destroy() {
+        scaler.shutdown();
+        executors.forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+
+    private void rescale() {
+        for (MessageListenerContainer listener : registry.getListenerContainers()) {
+            if (!(listener instanceof SimpleMessageListenerContainer container) || !container.isRunning()) {
+                continue;
+            }
+            String queue = container.getQueueNames()[0];
+            Settings queueSettings = settings.get(queue);
+            if (queueSettings == null || !queueSettings.adaptive()) {
+                continue;
+            }
+            try {
+                QueueInformation info = amqpAdmin.getQueueInfo(queue);
+                if (info == null) {
+                    continue;
+                }
+                int wanted = (int) Math.ceil((double) info.getMessageCount() / queueSettings.messagesPerConsumer());
+                int target = Math.max(queueSettings.concurrency(), Math.min(queueSettings.maxConcurrency(), wanted));
+                Integer current = consumers.get(queue);
+                if (current == null || current != target) {
+                    container.setConcurrentConsumers(target);
+                    consumers.put(queue, target);
+                    log.info("Scaled consumers of {} to {} for a depth of {}", queue, target, info.getMessageCount());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not rescale consumers of {}: {}", queue, e.getMessage());
+            }
+        }
+    }
+
+    private int setting(String queue, String name, int defaultValue) {
+        return Integer.parseInt(property(queue, name, String.valueOf(defaultValue)));
+    }
+
+    private String property(String queue, String name, String defaultValue) {
+        return properties.getProperty(PREFIX + queue + "." + name,
+                properties.getProperty(PREFIX + "default." + name, defaultValue));
+    }
+
+    private record Settings(int concurrency, int maxConcurrency, boolean adaptive, int messagesPerConsumer) {
+    }
+}
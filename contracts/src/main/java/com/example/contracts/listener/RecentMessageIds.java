@@ -0,0 +1,48 @@
+package com.example.contracts.listener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ids of the messages this node handled recently, so a publisher's resend of a message whose confirm came late
+ * is dropped instead of handled twice. Consumers check {@link #contains} before handling a message and
+ * {@link #add} it only once it was handled, so a failed message that comes back from a retry queue, under
+ * the same id, is handled again.
+ * <p>
+ * Bounded by count and age, and local to the node: a repeat that arrives after the window, after a restart or
+ * on another node still gets through. Delivery stays at-least-once, and handlers must tolerate the rare repeat.
+ */
+public class RecentMessageIds {
+
+    private final long windowMs;
+    private final Map<String, Long> handledAt;
+
+    public RecentMessageIds(int maxEntries, long windowMs) {
+        this.windowMs = windowMs;
+        this.handledAt = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxEntries || eldest.getValue() < System.currentTimeMillis() - windowMs;
+            }
+        };
+    }
+
+    /**
+     * Whether a message with this id was handled within the window; messages without an id never were.
+     */
+    public synchronized boolean contains(String messageId) {
+        if (messageId == null) {
+            return false;
+        }
+        Long at = handledAt.get(messageId);
+        return at != null && at >= System.currentTimeMillis() - windowMs;
+    }
+
+    public synchronized void add(String messageId) {
+        if (messageId != null) {
+            // Re-inserted, so the map stays in handling order and the eldest entry is the oldest
+            handledAt.remove(messageId);
+            handledAt.put(messageId, System.currentTimeMillis());
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.contracts.retry;
+
+/**
+ * A message waiting in a DLQ, as shown by the inspection endpoints. JSON and text bodies are shown as text,
+ * anything else (CBOR) base64-encoded.
+ */
+public record DeadLetter(String queue, Integer attempts, String exceptionType, String exceptionMessage,
+                         Long failedAt, String typeId, String contentType, String body) {
+}
@@ -0,0 +1,100 @@
+package com.example.contracts.retry;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Messages that used up their retries, per consumed queue: count, inspect, and put back once the cause is fixed.
+ * Admins only, as decided by the predicate the service passes in; everyone else gets 403.
+ * <p>
+ * Outside each service's component scan, so it is registered as a bean next to {@link DeadLetters}.
+ */
+@RestController
+@RequestMapping("/api/dead-letters")
+public class DeadLetterController {
+
+    public static final String ADMIN_TOKEN_HEADER = "X-Admin-Token";
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final DeadLetters deadLetters;
+    private final Predicate<WebRequest> isAdmin;
+
+    public DeadLetterController(DeadLetters deadLetters, Predicate<WebRequest> isAdmin) {
+        this.deadLetters = deadLetters;
+        this.isAdmin = isAdmin;
+    }
+
+    /**
+     * For services with Spring Security: admins are users in {@code role}.
+     */
+    public static Predicate<WebRequest> hasRole(String role) {
+        return request -> request.isUserInRole(role);
+    }
+
+    /**
+     * For services without user accounts: admins send {@code token} in the X-Admin-Token header.
+     * A blank token locks the endpoints.
+     */
+    public static Predicate<WebRequest> adminToken(String token) {
+        if (token == null || token.isBlank()) {
+            return request -> false;
+        }
+        byte[] expected = token.getBytes(StandardCharsets.UTF_8);
+        return request -> {
+            String sent = request.getHeader(ADMIN_TOKEN_HEADER);
+            return sent != null && MessageDigest.isEqual(expected, sent.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Integer>> getCounts(WebRequest request) {
+        if (!isAdmin.test(request)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(deadLetters.counts());
+    }
+
+    // Oldest first; the messages stay in the DLQ
+    @GetMapping("/{queue}")
+    public ResponseEntity<List<DeadLetter>> getDeadLetters(@PathVariable String queue,
+                                                           @RequestParam(defaultValue = "20") int limit,
+                                                           WebRequest request) {
+        if (!isAdmin.test(request)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        try {
+            return ResponseEntity.ok(deadLetters.peek(queue, Math.min(limit, MAX_LIMIT)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/{queue}/replay")
+    public ResponseEntity<Map<String, Object>> replay(@PathVariable String queue,
+                                                      @RequestParam(defaultValue = "100") int limit,
+                                                      WebRequest request) {
+        if (!isAdmin.test(request)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        try {
+            int replayed = deadLetters.replay(queue, Math.min(limit, MAX_LIMIT));
+            return ResponseEntity.ok(Map.of("queue", queue, "replayed", replayed));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
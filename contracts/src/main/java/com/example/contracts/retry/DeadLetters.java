@@ -0,0 +1,150 @@
+package com.example.contracts.retry;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.GetResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inspection and replay of the DLQs of a {@link RetryTopology}. Only the topology's own queues are accepted.
+ */
+@Slf4j
+public class DeadLetters {
+
+    private static final List<String> RETRY_HEADERS = List.of(RetryTopology.ATTEMPTS_HEADER,
+            RetryTopology.ORIGINAL_QUEUE_HEADER, RetryTopology.EXCEPTION_TYPE_HEADER,
+            RetryTopology.EXCEPTION_MESSAGE_HEADER, RetryTopology.FAILED_AT_HEADER);
+
+    private final RetryTopology topology;
+    private final RabbitTemplate rabbitTemplate;
+    private final AmqpAdmin amqpAdmin;
+    private final long confirmTimeoutMs;
+
+    public DeadLetters(RetryTopology topology, RabbitTemplate rabbitTemplate, AmqpAdmin amqpAdmin,
+                       long confirmTimeoutMs) {
+        this.topology = topology;
+        this.rabbitTemplate = rabbitTemplate;
+        this.amqpAdmin = amqpAdmin;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+    }
+
+    /**
+     * Number of dead letters per consumed queue.
+     */
+    public Map<String, Integer> counts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String queue : topology.queues()) {
+            QueueInformation info = amqpAdmin.getQueueInfo(RetryTopology.deadLetterQueue(queue));
+            counts.put(queue, info != null ? info.getMessageCount() : 0);
+        }
+        return counts;
+    }
+
+    /**
+     * Up to {@code limit} dead letters of a queue, oldest first; they stay in the DLQ.
+     */
+    public List<DeadLetter> peek(String queue, int limit) {
+        String deadLetterQueue = deadLetterQueueOf(queue);
+        return rabbitTemplate.execute(channel -> {
+            List<DeadLetter> letters = new ArrayList<>();
+            long lastTag = -1;
+            try {
+                while (letters.size() < limit) {
+                    GetResponse response = channel.basicGet(deadLetterQueue, false);
+                    if (response == null) {
+                        break;
+                    }
+                    lastTag = response.getEnvelope().getDeliveryTag();
+                    letters.add(view(queue, response));
+                }
+            } finally {
+                // Put everything back, in order
+                if (lastTag >= 0) {
+                    channel.basicNack(lastTag, true, true);
+                }
+            }
+            return letters;
+        });
+    }
+
+    /**
+     * Moves up to {@code limit} dead letters back onto their queue with a fresh set of attempts.
+     * Each one leaves the DLQ only after the broker took the copy, so a failed replay loses nothing.
+     */
+    public int replay(String queue, int limit) {
+        String deadLetterQueue = deadLetterQueueOf(queue);
+        ConnectionFactory connectionFactory = rabbitTemplate.getConnectionFactory();
+        boolean confirms = connectionFactory.isSimplePublisherConfirms() || connectionFactory.isPublisherConfirms();
+        Integer replayed = rabbitTemplate.execute(channel -> {
+            int count = 0;
+            while (count < limit) {
+                GetResponse response = channel.basicGet(deadLetterQueue, false);
+                if (response == null) {
+                    break;
+                }
+                channel.basicPublish("", queue, withoutRetryHeaders(response.getProps()), response.getBody());
+                if (confirms) {
+                    channel.waitForConfirmsOrDie(confirmTimeoutMs);
+                }
+                channel.basicAck(response.getEnvelope().getDeliveryTag(), false);
+                count++;
+            }
+            return count;
+        });
+        log.info("Replayed {} message(s) from {} to {}", replayed, deadLetterQueue, queue);
+        return replayed != null ? replayed : 0;
+    }
+
+    private String deadLetterQueueOf(String queue) {
+        if (!topology.covers(queue)) {
+            throw new IllegalArgumentException("No dead-letter queue for " + queue
+                    + "; known queues: " + topology.queues());
+        }
+        return RetryTopology.deadLetterQueue(queue);
+    }
+
+    private static AMQP.BasicProperties withoutRetryHeaders(AMQP.BasicProperties properties) {
+        Map<String, Object> headers = new HashMap<>();
+        if (properties.getHeaders() != null) {
+            headers.putAll(properties.getHeaders());
+        }
+        RETRY_HEADERS.forEach(headers::remove);
+        return properties.builder().headers(headers).build();
+    }
+
+    private static DeadLetter view(String queue, GetResponse response) {
+        AMQP.BasicProperties properties = response.getProps();
+        Map<String, Object> headers = properties.getHeaders() != null ? properties.getHeaders() : Map.of();
+        String contentType = properties.getContentType();
+        boolean text = contentType != null && (contentType.contains("json") || contentType.startsWith("text/"));
+        String body = text ? new String(response.getBody(), StandardCharsets.UTF_8)
+                : Base64.getEncoder().encodeToString(response.getBody());
+        Object attempts = headers.get(RetryTopology.ATTEMPTS_HEADER);
+        Object failedAt = headers.get(RetryTopology.FAILED_AT_HEADER);
+        return new DeadLetter(queue,
+                attempts instanceof Number number ? number.intValue() : null,
+                text(headers.get(RetryTopology.EXCEPTION_TYPE_HEADER)),
+                text(headers.get(RetryTopology.EXCEPTION_MESSAGE_HEADER)),
+                failedAt instanceof Number number ? number.longValue() : null,
+                text(headers.get(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME)),
+                contentType,
+                body);
+    }
+
+    // String headers arrive from the broker as LongString
+    private static String text(Object header) {
+        return header != null ? header.toString() : null;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.contracts.retry;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Thrown by a batch listener when only some messages of the batch failed. {@link RetryRouter} then retries
+ * just those, by their position in the batch, and the rest of the batch is acked as handled.
+ */
+public class PartialBatchFailureException extends RuntimeException {
+
+    private final Map<Integer, Throwable> failures;
+
+    public PartialBatchFailureException(Map<Integer, Throwable> failures, int batchSize) {
+        super(failures.size() + " of " + batchSize + " messages in the batch failed");
+        this.failures = Collections.unmodifiableMap(new TreeMap<>(failures));
+    }
+
+    /**
+     * Cause of each failed message, keyed by its position in the batch.
+     */
+    public Map<Integer, Throwable> getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.contracts.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes with publisher confirms and mandatory returns, off the caller's thread.
+ * Each send is tracked by correlation id until the broker confirms it; nacked, returned and
+ * unconfirmed messages are resent with exponential backoff, up to a bounded number of attempts.
+ * Delivery is at-least-once: a message whose confirm is merely late is resent too. A message keeps its message id
+ * across attempts, and the consumers drop repeats with {@link com.example.contracts.listener.RecentMessageIds}
+ * (the store's order lanes, the email listener); delivery statuses are also ordered by their sequence number.
+ * <p>
+ * A message that runs out of attempts goes to the DLQ of the queue its routing key feeds, with the same
+ * headers as a message the consumer gave up on, so it shows up under /api/dead-letters of the consuming service
+ * and a replay delivers it. Until the DLQ takes it (e.g. while the broker is down) it is held in memory and
+ * offered again every confirm-timeout/2.
+ * <p>
+ * The RabbitTemplate needs correlated confirms and publisher returns on its connection factory, and mandatory set.
+ */
+@Slf4j
+public class ReliablePublisher implements DisposableBean {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final Map<String, String> queuesByRoutingKey;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Outgoing> pending = new ConcurrentHashMap<>();
+    private final Queue<GivenUp> held = new ConcurrentLinkedQueue<>();
+    private final Timer confirmLatency;
+    private final Counter retried;
+    private final Counter failed;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final long confirmTimeoutMs;
+
+    /**
+     * @param queuesByRoutingKey the consumer queue each published routing key ends up in, whose DLQ takes give-ups
+     */
+    public ReliablePublisher(RabbitTemplate rabbitTemplate, MeterRegistry meterRegistry,
+                             Map<String, String> queuesByRoutingKey, int maxAttempts, long initialBackoffMs,
+                             long maxBackoffMs, long confirmTimeoutMs) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.queuesByRoutingKey = Map.copyOf(queuesByRoutingKey);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "amqp-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.confirmLatency = Timer.builder("amqp.publisher.confirm.latency")
+                .description("Time from publish to broker confirm")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.retried = meterRegistry.counter("amqp.publisher.retried");
+        this.failed = meterRegistry.counter("amqp.publisher.failed");
+        Gauge.builder("amqp.publisher.pending", pending, Map::size)
+                .description("Messages published and not yet confirmed")
+                .register(meterRegistry);
+        Gauge.builder("amqp.publisher.held", held, Queue::size)
+                .description("Messages given up on and not yet taken by their DLQ")
+                .register(meterRegistry);
+        scheduler.scheduleWithFixedDelay(this::resendUnconfirmed, confirmTimeoutMs, confirmTimeoutMs / 2,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public void publish(String exchange, String routingKey, Object payload) {
+        MessageProperties properties = new MessageProperties();
+        properties.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        properties.setMessageId(UUID.randomUUID().toString());
+        Message message = rabbitTemplate.getMessageConverter().toMessage(payload, properties);
+        scheduler.execute(() -> send(new Outgoing(exchange, routingKey, message, 1, 0L)));
+    }
+
+    /**
+     * Messages given up on that no DLQ has taken yet.
+     */
+    public int heldCount() {
+        return held.size();
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdown();
+        if (!held.isEmpty()) {
+            log.error("Shutting down with {} message(s) given up on and not dead-lettered", held.size());
+        }
+    }
+
+    private void send(Outgoing outgoing) {
+        CorrelationData correlation = new CorrelationData(UUID.randomUUID().toString());
+        pending.put(correlation.getId(), outgoing.sentAt(System.nanoTime()));
+        try {
+            rabbitTemplate.send(outgoing.exchange(), outgoing.routingKey(), outgoing.message(), correlation);
+        } catch (AmqpException e) {
+            pending.remove(correlation.getId());
+            retry(outgoing, e.getMessage());
+            return;
+        }
+        correlation.getFuture().whenComplete((confirm, error) -> {
+            Outgoing sent = pending.remove(correlation.getId());
+            if (sent == null) {
+                // Already given up on as unconfirmed and resent
+                return;
+            }
+            confirmLatency.record(System.nanoTime() - sent.sentAtNanos(), TimeUnit.NANOSECONDS);
+            ReturnedMessage returned = correlation.getReturned();
+            if (error == null && confirm.isAck() && returned == null) {
+                return;
+            }
+            String reason = returned != null ? "returned: " + returned.getReplyText()
+                    : error != null ? error.getMessage() : "nacked: " + confirm.getReason();
+            retry(sent, reason);
+        });
+    }
+
+    private void resendUnconfirmed() {
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+        pending.forEach((id, outgoing) -> {
+            if (outgoing.sentAtNanos() < cutoff && pending.remove(id, outgoing)) {
+                retry(outgoing, "no confirm within " + confirmTimeoutMs + " ms");
+            }
+        });
+        for (int i = held.size(); i > 0; i--) {
+            GivenUp givenUp = held.poll();
+            if (givenUp == null || !deadLetter(givenUp)) {
+                break;
+            }
+        }
+    }
+
+    private void retry(Outgoing outgoing, String reason) {
+        if (outgoing.attempt() >= maxAttempts) {
+            failed.increment();
+            log.error("Giving up on message {} to {}/{} after {} attempts, dead-lettering it: {}",
+                    outgoing.message().getMessageProperties().getMessageId(), outgoing.exchange(),
+                    outgoing.routingKey(), outgoing.attempt(), reason);
+            // On the publisher thread: this may be a confirm callback, which must not wait for another confirm
+            GivenUp givenUp = new GivenUp(outgoing, reason, System.currentTimeMillis());
+            scheduler.execute(() -> deadLetter(givenUp));
+            return;
+        }
+        long backoff = Math.min(maxBackoffMs, initialBackoffMs << Math.min(outgoing.attempt() - 1, 20));
+        long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        retried.increment();
+        log.warn("Resending message {} to {}/{} in {} ms (attempt {}): {}",
+                outgoing.message().getMessageProperties().getMessageId(), outgoing.exchange(),
+                outgoing.routingKey(), delay, outgoing.attempt() + 1, reason);
+        scheduler.schedule(() -> send(outgoing.nextAttempt()), delay, TimeUnit.MILLISECONDS);
+    }
+
+    // Straight into the DLQ through the default exchange, waiting for the confirm; kept in memory if it fails
+    private boolean deadLetter(GivenUp givenUp) {
+        Outgoing outgoing = givenUp.outgoing();
+        String queue = queuesByRoutingKey.get(outgoing.routingKey());
+        if (queue == null) {
+            log.error("No consumer queue known for routing key {}; message {} is only kept in memory",
+                    outgoing.routingKey(), outgoing.message().getMessageProperties().getMessageId());
+            held.add(givenUp);
+            return false;
+        }
+        MessageProperties properties = outgoing.message().getMessageProperties();
+        properties.setHeader(RetryTopology.ATTEMPTS_HEADER, outgoing.attempt());
+        properties.setHeader(RetryTopology.ORIGINAL_QUEUE_HEADER, queue);
+        properties.setHeader(RetryTopology.EXCEPTION_TYPE_HEADER, "PublishFailure");
+        properties.setHeader(RetryTopology.EXCEPTION_MESSAGE_HEADER, givenUp.reason());
+        properties.setHeader(RetryTopology.FAILED_AT_HEADER, givenUp.failedAt());
+        CorrelationData correlation = new CorrelationData(UUID.randomUUID().toString());
+        try {
+            rabbitTemplate.send("", RetryTopology.deadLetterQueue(queue), outgoing.message(), correlation);
+            CorrelationData.Confirm confirm = correlation.getFuture().get(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+            if (confirm.isAck() && correlation.getReturned() == null) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Could not dead-letter message {}: {}", properties.getMessageId(), e.getMessage());
+        }
+        held.add(givenUp);
+        return false;
+    }
+
+    private record Outgoing(String exchange, String routingKey, Message message, int attempt, long sentAtNanos) {
+
+        Outgoing sentAt(long nanos) {
+            return new Outgoing(exchange, routingKey, message, attempt, nanos);
+        }
+
+        Outgoing nextAttempt() {
+            return new Outgoing(exchange, routingKey, message, attempt + 1, 0L);
+        }
+    }
+
+    private record GivenUp(Outgoing outgoing, String reason, long failedAt) {
+    }
+}
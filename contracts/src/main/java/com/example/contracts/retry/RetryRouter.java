@@ -0,0 +1,225 @@
+package com.example.contracts.retry;
+
+import com.example.contracts.listener.RecentMessageIds;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Listener container advice that replaces requeueing. When the listener throws, the message is sent to its
+ * next retry tier, or to the DLQ once its attempts are used up or when it cannot be decoded at all, and the
+ * original delivery is acked, so a failing message costs nothing until its delay expires.
+ * Messages from queues the topology does not cover, and messages the broker did not confirm taking,
+ * fail as before.
+ * <p>
+ * A batch is acked or requeued as a whole, so when some of its failed messages could not be routed the batch
+ * fails and comes back. Its other messages, handled or already routed, are remembered by message id and
+ * attempt, and left out of the listener's batch when they are redelivered; messages without an id cannot be
+ * told apart and are handled again.
+ */
+@Slf4j
+public class RetryRouter implements MethodInterceptor {
+
+    private static final int MAX_EXCEPTION_MESSAGE_LENGTH = 1000;
+    private static final int MAX_SETTLED_ENTRIES = 10_000;
+    private static final long SETTLED_WINDOW_MS = 10 * 60 * 1000L;
+
+    private final RetryTopology topology;
+    private final RabbitTemplate rabbitTemplate;
+    private final long confirmTimeoutMs;
+    // Messages of a requeued batch that were already handled or routed, to drop on redelivery
+    private final RecentMessageIds settled = new RecentMessageIds(MAX_SETTLED_ENTRIES, SETTLED_WINDOW_MS);
+
+    public RetryRouter(RetryTopology topology, RabbitTemplate rabbitTemplate, long confirmTimeoutMs) {
+        this.topology = topology;
+        this.rabbitTemplate = rabbitTemplate;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+    }
+
+    // Advises ContainerDelegate.invokeListener(Channel, Object); the data is a Message, or a List<Message> for batches
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (invocation.getArguments()[1] instanceof List<?> batch && !withoutSettled(invocation, batch)) {
+            return null;
+        }
+        try {
+            return invocation.proceed();
+        } catch (Throwable error) {
+            Object data = invocation.getArguments()[1];
+            if (data instanceof Message message && topology.covers(queueOf(message))) {
+                route(message, error);
+                return null;
+            }
+            if (data instanceof List<?> batch && !batch.isEmpty() && batch.get(0) instanceof Message first
+                    && topology.covers(queueOf(first))) {
+                routeBatch(batch, error);
+                return null;
+            }
+            throw error;
+        }
+    }
+
+    // Routes each failed message of the batch on its own. If any cannot be routed the batch is failed for
+    // requeueing, after recording every other message so its redelivery is dropped instead of handled twice.
+    private void routeBatch(List<?> batch, Throwable error) {
+        PartialBatchFailureException partial = find(error, PartialBatchFailureException.class);
+        Map<Integer, Throwable> failures = new LinkedHashMap<>();
+        if (partial != null) {
+            failures.putAll(partial.getFailures());
+        } else {
+            for (int position = 0; position < batch.size(); position++) {
+                failures.put(position, error);
+            }
+        }
+
+        List<String> keys = new ArrayList<>(batch.size());
+        batch.forEach(message -> keys.add(settledKey((Message) message)));
+        Map<Integer, RuntimeException> unrouted = new LinkedHashMap<>();
+        for (var failure : failures.entrySet()) {
+            try {
+                route((Message) batch.get(failure.getKey()), failure.getValue());
+            } catch (RuntimeException e) {
+                unrouted.put(failure.getKey(), e);
+            }
+        }
+        if (unrouted.isEmpty()) {
+            return;
+        }
+
+        for (int position = 0; position < batch.size(); position++) {
+            if (!unrouted.containsKey(position)) {
+                settled.add(keys.get(position));
+            }
+        }
+        RuntimeException first = unrouted.values().iterator().next();
+        log.error("{} of {} failed messages from {} could not be routed, requeueing the batch: {}",
+                unrouted.size(), failures.size(), queueOf((Message) batch.get(0)), first.getMessage());
+        throw first;
+    }
+
+    // Leaves the settled messages of a redelivered batch out of the listener's batch; false when none are left
+    private boolean withoutSettled(MethodInvocation invocation, List<?> batch) {
+        List<Object> remaining = new ArrayList<>(batch.size());
+        for (Object item : batch) {
+            if (!(item instanceof Message message) || !settled.contains(settledKey(message))) {
+                remaining.add(item);
+            }
+        }
+        if (remaining.size() == batch.size() || !(invocation instanceof ProxyMethodInvocation proxied)) {
+            return true;
+        }
+        log.info("Dropping {} redelivered messages that were already handled or routed", batch.size() - remaining.size());
+        if (remaining.isEmpty()) {
+            return false;
+        }
+        proxied.setArguments(invocation.getArguments()[0], remaining);
+        return true;
+    }
+
+    private void route(Message message, Throwable error) {
+        MessageProperties properties = message.getMessageProperties();
+        String queue = queueOf(message);
+        Object previous = properties.getHeader(RetryTopology.ATTEMPTS_HEADER);
+        int attempts = (previous instanceof Number number ? number.intValue() : 0) + 1;
+        // A message that cannot be decoded fails the same way every time
+        boolean poison = find(error, MessageConversionException.class) != null;
+        String target = poison ? RetryTopology.deadLetterQueue(queue) : topology.nextQueue(queue, attempts);
+
+        Throwable cause = rootCause(error);
+        properties.setHeader(RetryTopology.ATTEMPTS_HEADER, attempts);
+        properties.setHeader(RetryTopology.ORIGINAL_QUEUE_HEADER, queue);
+        properties.setHeader(RetryTopology.EXCEPTION_TYPE_HEADER, cause.getClass().getName());
+        properties.setHeader(RetryTopology.EXCEPTION_MESSAGE_HEADER, truncate(String.valueOf(cause.getMessage())));
+        properties.setHeader(RetryTopology.FAILED_AT_HEADER, System.currentTimeMillis());
+        send(target, message);
+
+        if (target.equals(RetryTopology.deadLetterQueue(queue))) {
+            log.error("Message from {} failed {} time(s), moved to {}: {}",
+                    queue, attempts, target, cause.getMessage());
+        } else {
+            log.warn("Message from {} failed (attempt {} of {}), retrying via {}: {}",
+                    queue, attempts, topology.maxAttempts(), target, cause.getMessage());
+        }
+    }
+
+    // Through the default exchange, waiting for the broker's confirm when the connection has them enabled,
+    // so the original delivery is only acked once the copy is safe
+    private void send(String queue, Message message) {
+        ConnectionFactory connectionFactory = rabbitTemplate.getConnectionFactory();
+        if (connectionFactory.isSimplePublisherConfirms()) {
+            rabbitTemplate.invoke(operations -> {
+                operations.send("", queue, message);
+                operations.waitForConfirmsOrDie(confirmTimeoutMs);
+                return null;
+            });
+        } else if (connectionFactory.isPublisherConfirms()) {
+            CorrelationData correlation = new CorrelationData();
+            rabbitTemplate.send("", queue, message, correlation);
+            try {
+                CorrelationData.Confirm confirm = correlation.getFuture().get(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+                if (!confirm.isAck()) {
+                    throw new AmqpException("Broker refused message for " + queue + ": " + confirm.getReason());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AmqpException("Interrupted while waiting for confirm from " + queue, e);
+            } catch (ExecutionException | TimeoutException e) {
+                throw new AmqpException("No confirm for message sent to " + queue, e);
+            }
+        } else {
+            rabbitTemplate.send("", queue, message);
+        }
+    }
+
+    // The attempt is part of the key: the copy a retry tier sends back carries the next one and must be handled
+    private static String settledKey(Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        if (properties.getMessageId() == null) {
+            return null;
+        }
+        return queueOf(message) + '\n' + properties.getMessageId() + '\n'
+                + properties.getHeader(RetryTopology.ATTEMPTS_HEADER);
+    }
+
+    private static String queueOf(Message message) {
+        return message.getMessageProperties().getConsumerQueue();
+    }
+
+    private static <T extends Throwable> T find(Throwable error, Class<T> type) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (type.isInstance(current)) {
+                return type.cast(current);
+            }
+        }
+        return null;
+    }
+
+    private static Throwable rootCause(Throwable error) {
+        Throwable current = error;
+        while (current.getCause() != null && current.getCause() != current) {
+            current = current.getCause();
+        }
+        return current;
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_EXCEPTION_MESSAGE_LENGTH ? message
+                : message.substring(0, MAX_EXCEPTION_MESSAGE_LENGTH);
+    }
+}
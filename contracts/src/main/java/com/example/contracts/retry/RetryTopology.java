@@ -0,0 +1,93 @@
+package com.example.contracts.retry;
+
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.QueueBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Retry and dead-letter queues for the queues a service consumes. A failed message is parked in
+ * {@code <queue>.retry.<delay>ms}, a queue without consumers whose TTL dead-letters it back to
+ * {@code <queue>}; every tier has its own queue, so all its messages share one TTL and expire in order.
+ * After {@code maxAttempts} failed deliveries the message goes to {@code <queue>.dlq} until it is replayed.
+ */
+public class RetryTopology {
+
+    /** Failed deliveries so far, set on every message sent to a retry queue or the DLQ */
+    public static final String ATTEMPTS_HEADER = "x-retry-attempts";
+    public static final String ORIGINAL_QUEUE_HEADER = "x-original-queue";
+    public static final String EXCEPTION_TYPE_HEADER = "x-exception-type";
+    public static final String EXCEPTION_MESSAGE_HEADER = "x-exception-message";
+    public static final String FAILED_AT_HEADER = "x-failed-at";
+
+    private final List<String> queues;
+    private final long[] delaysMs;
+    private final int maxAttempts;
+
+    public RetryTopology(List<String> queues, long[] delaysMs, int maxAttempts) {
+        if (delaysMs.length == 0
+                || Arrays.stream(delaysMs).anyMatch(delay -> delay <= 0 || delay > Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException("Retry delays must be positive milliseconds: "
+                    + Arrays.toString(delaysMs));
+        }
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Max attempts must be at least 1, was " + maxAttempts);
+        }
+        this.queues = List.copyOf(queues);
+        this.delaysMs = delaysMs.clone();
+        this.maxAttempts = maxAttempts;
+    }
+
+    public static String retryQueue(String queue, long delayMs) {
+        return queue + ".retry." + delayMs + "ms";
+    }
+
+    public static String deadLetterQueue(String queue) {
+        return queue + ".dlq";
+    }
+
+    public List<String> queues() {
+        return queues;
+    }
+
+    public boolean covers(String queue) {
+        return queue != null && queues.contains(queue);
+    }
+
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Where a message goes after its {@code attempts}-th failed delivery: the next retry tier (the last tier
+     * repeats when there are more attempts than tiers), or the DLQ once the attempts are used up.
+     */
+    public String nextQueue(String queue, int attempts) {
+        if (attempts >= maxAttempts) {
+            return deadLetterQueue(queue);
+        }
+        return retryQueue(queue, delaysMs[Math.min(attempts, delaysMs.length) - 1]);
+    }
+
+    /**
+     * The retry tiers and DLQ of every covered queue, for RabbitAdmin to declare at startup.
+     */
+    public Declarables declarables() {
+        List<Declarable> declarables = new ArrayList<>();
+        for (String queue : queues) {
+            for (long delay : delaysMs) {
+                // Default exchange: the dead-letter routing key is the name of the queue to return to
+                declarables.add(QueueBuilder.durable(retryQueue(queue, delay))
+                        .ttl((int) delay)
+                        .deadLetterExchange("")
+                        .deadLetterRoutingKey(queue)
+                        .build());
+            }
+            declarables.add(QueueBuilder.durable(deadLetterQueue(queue)).build());
+        }
+        return new Declarables(declarables);
+    }
+}
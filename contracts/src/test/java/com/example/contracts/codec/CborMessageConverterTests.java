@@ -0,0 +1,33 @@
+package com.example.contracts.codec;
+
+import com.example.contracts.PaymentResponseMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CborMessageConverterTests {
+
+    private final CborMessageConverter converter = new CborMessageConverter();
+
+    @Test
+    void readsContracts() {
+        PaymentResponseMessage payload = new PaymentResponseMessage(42, "SUCCESS", "tx-7", "Payment successful");
+
+        Message message = converter.toMessage(payload, new MessageProperties());
+
+        assertEquals(CborMessageConverter.CONTENT_TYPE, message.getMessageProperties().getContentType());
+        assertEquals(payload, converter.fromMessage(message));
+    }
+
+    @Test
+    void refusesTypesOutsideTheTrustedPackages() {
+        Message message = converter.toMessage(new PaymentResponseMessage(42, "SUCCESS", "tx-7", "ok"),
+                new MessageProperties());
+        message.getMessageProperties().setHeader("__TypeId__", "javax.management.loading.MLet");
+
+        assertThrows(IllegalArgumentException.class, () -> converter.fromMessage(message));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.contracts.codec;
+
+import com.example.contracts.DeliveryRequestMessage;
+import com.example.contracts.DeliveryStatusMessage;
+import com.example.contracts.EmailMessage;
+import com.example.contracts.PaymentRequestMessage;
+import com.example.contracts.PaymentResponseMessage;
+import com.example.contracts.RefundRequestMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.SimpleMessageConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ContractMessageConverterTests {
+
+    private static final List<Object> MESSAGES = List.of(
+            new PaymentRequestMessage(42, "ACC-CUSTOMER-0001", "ACC-STORE-0001", 19.99, "req-1"),
+            new RefundRequestMessage(42, "ACC-STORE-0001", "ACC-CUSTOMER-0001", 19.99, "tx-7"),
+            new PaymentResponseMessage(42, "SUCCESS", "tx-7", "Payment successful"),
+            new DeliveryRequestMessage(42, "1 Main St", "a@example.com", "Alex", "Keyboard", 2, 1_760_000_000_000L),
+            new DeliveryStatusMessage(42, "in_transit", "On its way", 1_760_000_000_000L, "TRK_1", 3L),
+            new EmailMessage("42", "a@example.com", "Delivered", "Dear Alex,\n\nété ✓", "delivered"),
+            new DeliveryStatusMessage(42, "received", null, null, null, null));
+
+    private final ContractMessageConverter json = ContractMessageConverter.json(new SimpleMessageConverter());
+    private final ContractMessageConverter cbor = ContractMessageConverter.cbor(new SimpleMessageConverter());
+
+    @Test
+    void everyContractRoundTripsInBothFormats() {
+        for (ContractMessageConverter converter : List.of(json, cbor)) {
+            for (Object payload : MESSAGES) {
+                Message message = converter.toMessage(payload, new MessageProperties());
+                assertEquals(payload.getClass().getName(), message.getMessageProperties().getHeader("__TypeId__"));
+                assertEquals(payload, converter.fromMessage(message));
+            }
+        }
+        assertEquals(Codecs.all().size(), MESSAGES.stream().map(Object::getClass).distinct().count());
+    }
+
+    @Test
+    void readsPayloadsFromSendersWithTheirOwnClasses() {
+        // As sent by deliveryco's former EmailRequestMessage: other class name, other field order, no version
+        MessageProperties properties = new MessageProperties();
+        properties.setHeader("__TypeId__", "com.example.deliveryco.dto.EmailRequestMessage");
+        properties.setInferredArgumentType(EmailMessage.class);
+        Message message = new Message(("{\"toAddress\":\"a@example.com\",\"subject\":\"Lost\",\"body\":\"Sorry\","
+                + "\"orderId\":\"42\",\"status\":\"lost\",\"priority\":{\"level\":1}}").getBytes(StandardCharsets.UTF_8),
+                properties);
+
+        assertEquals(new EmailMessage("42", "a@example.com", "Lost", "Sorry", "lost"), json.fromMessage(message));
+    }
+
+    @Test
+    void refusesNewerSchemaVersions() {
+        MessageProperties properties = new MessageProperties();
+        properties.setInferredArgumentType(PaymentResponseMessage.class);
+        Message message = new Message("{\"schemaVersion\":2,\"orderId\":42}".getBytes(StandardCharsets.UTF_8),
+                properties);
+
+        assertThrows(MessageConversionException.class, () -> json.fromMessage(message));
+    }
+
+    @Test
+    void otherPayloadsGoToTheFallback() {
+        Message message = json.toMessage("plain text", new MessageProperties());
+
+        assertEquals(MessageProperties.CONTENT_TYPE_TEXT_PLAIN, message.getMessageProperties().getContentType());
+        assertEquals("plain text", json.fromMessage(message));
+    }
+}
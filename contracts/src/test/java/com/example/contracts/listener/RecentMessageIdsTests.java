@@ -0,0 +1,32 @@
+package com.example.contracts.listener;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecentMessageIdsTests {
+
+    @Test
+    void remembersHandledIdsUpToTheBound() {
+        RecentMessageIds ids = new RecentMessageIds(2, 60_000);
+        ids.add("a");
+        ids.add("b");
+        assertTrue(ids.contains("a"));
+        assertFalse(ids.contains("c"));
+        assertFalse(ids.contains(null));
+
+        ids.add("c");
+        assertFalse(ids.contains("a"));
+        assertTrue(ids.contains("b"));
+        assertTrue(ids.contains("c"));
+    }
+
+    @Test
+    void forgetsIdsOutsideTheWindow() throws InterruptedException {
+        RecentMessageIds ids = new RecentMessageIds(100, 20);
+        ids.add("a");
+        Thread.sleep(40);
+        assertFalse(ids.contains("a"));
+    }
+}
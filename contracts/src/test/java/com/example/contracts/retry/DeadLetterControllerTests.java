@@ -0,0 +1,62 @@
+package com.example.contracts.retry;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeadLetterControllerTests {
+
+    private final DeadLetters deadLetters = mock(DeadLetters.class);
+
+    @Test
+    void adminTokenMustMatch() {
+        when(deadLetters.counts()).thenReturn(Map.of("email.request.queue", 2));
+        DeadLetterController controller = new DeadLetterController(deadLetters,
+                DeadLetterController.adminToken("s3cret"));
+
+        assertEquals(HttpStatus.OK, controller.getCounts(withToken("s3cret")).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, controller.getCounts(withToken("s3cre")).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, controller.getCounts(withToken(null)).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN,
+                controller.replay("email.request.queue", 10, withToken("other")).getStatusCode());
+        verify(deadLetters, never()).replay(anyString(), anyInt());
+    }
+
+    @Test
+    void blankTokenLocksTheEndpoints() {
+        DeadLetterController controller = new DeadLetterController(deadLetters, DeadLetterController.adminToken(""));
+
+        assertEquals(HttpStatus.FORBIDDEN, controller.getCounts(withToken("")).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN,
+                controller.getDeadLetters("email.request.queue", 20, withToken("")).getStatusCode());
+        verify(deadLetters, never()).peek(anyString(), anyInt());
+    }
+
+    @Test
+    void roleComesFromTheRequest() {
+        DeadLetterController controller = new DeadLetterController(deadLetters, DeadLetterController.hasRole("ADMIN"));
+        WebRequest admin = mock(WebRequest.class);
+        when(admin.isUserInRole("ADMIN")).thenReturn(true);
+        when(deadLetters.replay("email.request.queue", 100)).thenReturn(3);
+
+        assertEquals(HttpStatus.FORBIDDEN, controller.getCounts(mock(WebRequest.class)).getStatusCode());
+        assertEquals(Map.of("queue", "email.request.queue", "replayed", 3),
+                controller.replay("email.request.queue", 100, admin).getBody());
+    }
+
+    private static WebRequest withToken(String token) {
+        WebRequest request = mock(WebRequest.class);
+        when(request.getHeader(DeadLetterController.ADMIN_TOKEN_HEADER)).thenReturn(token);
+        return request;
+    }
+}
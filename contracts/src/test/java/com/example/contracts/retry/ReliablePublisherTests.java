@@ -0,0 +1,90 @@
+package com.example.contracts.retry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.SimpleMessageConverter;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReliablePublisherTests {
+
+    private static final String EXCHANGE = "bank.exchange";
+    private static final String ROUTING_KEY = "payment.response";
+    private static final String QUEUE = "payment.response.queue";
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final AtomicBoolean dlqAcks = new AtomicBoolean(true);
+    private ReliablePublisher publisher;
+
+    @BeforeEach
+    void brokerNacksTheExchange() {
+        when(rabbitTemplate.getMessageConverter()).thenReturn(new SimpleMessageConverter());
+        doAnswer(invocation -> {
+            boolean toDlq = invocation.getArgument(0, String.class).isEmpty();
+            invocation.getArgument(3, CorrelationData.class).getFuture()
+                    .complete(new CorrelationData.Confirm(toDlq && dlqAcks.get(), "nacked"));
+            return null;
+        }).when(rabbitTemplate).send(any(String.class), any(String.class), any(Message.class), any(CorrelationData.class));
+        publisher = new ReliablePublisher(rabbitTemplate, new SimpleMeterRegistry(), Map.of(ROUTING_KEY, QUEUE),
+                3, 1, 4, 200);
+    }
+
+    @AfterEach
+    void shutDown() {
+        publisher.destroy();
+    }
+
+    @Test
+    void givesUpIntoTheDeadLetterQueue() {
+        publisher.publish(EXCHANGE, ROUTING_KEY, "payload");
+
+        verify(rabbitTemplate, timeout(2000).times(3))
+                .send(eq(EXCHANGE), eq(ROUTING_KEY), any(Message.class), any(CorrelationData.class));
+        ArgumentCaptor<Message> dead = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate, timeout(2000))
+                .send(eq(""), eq(QUEUE + ".dlq"), dead.capture(), any(CorrelationData.class));
+        Map<String, Object> headers = dead.getValue().getMessageProperties().getHeaders();
+        assertEquals(3, headers.get(RetryTopology.ATTEMPTS_HEADER));
+        assertEquals(QUEUE, headers.get(RetryTopology.ORIGINAL_QUEUE_HEADER));
+        assertEquals("PublishFailure", headers.get(RetryTopology.EXCEPTION_TYPE_HEADER));
+        assertEquals(0, publisher.heldCount());
+    }
+
+    @Test
+    void holdsWhatTheDeadLetterQueueRefusesAndOffersItAgain() throws InterruptedException {
+        dlqAcks.set(false);
+        publisher.publish(EXCHANGE, ROUTING_KEY, "payload");
+
+        verify(rabbitTemplate, timeout(2000).atLeastOnce())
+                .send(eq(""), eq(QUEUE + ".dlq"), any(Message.class), any(CorrelationData.class));
+        for (int i = 0; i < 100 && publisher.heldCount() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, publisher.heldCount());
+
+        dlqAcks.set(true);
+        for (int i = 0; i < 200 && publisher.heldCount() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, publisher.heldCount());
+        verify(rabbitTemplate, times(3))
+                .send(eq(EXCHANGE), eq(ROUTING_KEY), any(Message.class), any(CorrelationData.class));
+    }
+}
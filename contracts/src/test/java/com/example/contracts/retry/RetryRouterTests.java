@@ -0,0 +1,151 @@
+package com.example.contracts.retry;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.ListenerExecutionFailedException;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RetryRouterTests {
+
+    private static final String QUEUE = "email.request.queue";
+
+    private final RetryTopology topology = new RetryTopology(List.of(QUEUE), new long[]{1000, 10000}, 4);
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final RetryRouter router = new RetryRouter(topology, rabbitTemplate, 1000);
+
+    @BeforeEach
+    void plainConnection() {
+        when(rabbitTemplate.getConnectionFactory()).thenReturn(mock(ConnectionFactory.class));
+    }
+
+    @Test
+    void failuresWalkTheTiersThenTheDeadLetterQueue() throws Throwable {
+        Message message = message(QUEUE);
+        List<String> expected = List.of("email.request.queue.retry.1000ms", "email.request.queue.retry.10000ms",
+                "email.request.queue.retry.10000ms", "email.request.queue.dlq");
+
+        for (int attempt = 1; attempt <= expected.size(); attempt++) {
+            assertNull(router.invoke(failing(message, new IllegalStateException("SMTP down"))));
+            Object attempts = message.getMessageProperties().getHeader(RetryTopology.ATTEMPTS_HEADER);
+            assertEquals(attempt, attempts);
+        }
+
+        ArgumentCaptor<String> queues = ArgumentCaptor.forClass(String.class);
+        verify(rabbitTemplate, times(expected.size())).send(eq(""), queues.capture(), eq(message));
+        assertEquals(expected, queues.getAllValues());
+        Object exceptionMessage = message.getMessageProperties().getHeader(RetryTopology.EXCEPTION_MESSAGE_HEADER);
+        assertEquals("SMTP down", exceptionMessage);
+    }
+
+    @Test
+    void undecodableMessagesGoStraightToTheDeadLetterQueue() throws Throwable {
+        Message message = message(QUEUE);
+
+        router.invoke(failing(message, new ListenerExecutionFailedException("Failed to convert message",
+                new MessageConversionException("bad body"), message)));
+
+        verify(rabbitTemplate).send("", "email.request.queue.dlq", message);
+    }
+
+    @Test
+    void onlyTheFailedMessagesOfABatchAreRetried() throws Throwable {
+        List<Message> batch = List.of(message(QUEUE), message(QUEUE), message(QUEUE));
+
+        router.invoke(failing(batch, new PartialBatchFailureException(
+                Map.of(1, new IllegalStateException("lock timeout")), batch.size())));
+
+        verify(rabbitTemplate).send("", "email.request.queue.retry.1000ms", batch.get(1));
+        verify(rabbitTemplate, never()).send(anyString(), anyString(), eq(batch.get(0)));
+        verify(rabbitTemplate, never()).send(anyString(), anyString(), eq(batch.get(2)));
+    }
+
+    @Test
+    void aBatchThatCannotBeFullyRoutedComesBackWithOnlyTheUnroutedMessages() throws Throwable {
+        List<Message> batch = List.of(message(QUEUE, "a"), message(QUEUE, "b"), message(QUEUE, "c"));
+        doThrow(new AmqpException("no confirm")).when(rabbitTemplate).send(anyString(), anyString(), eq(batch.get(2)));
+
+        assertThrows(AmqpException.class, () -> router.invoke(failing(batch, new PartialBatchFailureException(
+                Map.of(1, new IllegalStateException("lock timeout"), 2, new IllegalStateException("lock timeout")),
+                batch.size()))));
+        verify(rabbitTemplate).send("", "email.request.queue.retry.1000ms", batch.get(1));
+
+        // The broker requeued the whole batch: "a" was handled and "b" routed, so only "c" is handled again
+        List<Message> redelivered = List.of(message(QUEUE, "a"), message(QUEUE, "b"), message(QUEUE, "c"));
+        ProxyMethodInvocation invocation = mock(ProxyMethodInvocation.class);
+        when(invocation.getArguments()).thenReturn(new Object[]{null, redelivered});
+
+        router.invoke(invocation);
+
+        verify(invocation).setArguments(null, List.of(redelivered.get(2)));
+        verify(invocation).proceed();
+    }
+
+    @Test
+    void theRetryCopyOfARoutedMessageIsHandled() throws Throwable {
+        List<Message> batch = List.of(message(QUEUE, "a"), message(QUEUE, "b"));
+        doThrow(new AmqpException("no confirm")).when(rabbitTemplate).send(anyString(), anyString(), eq(batch.get(1)));
+        assertThrows(AmqpException.class, () -> router.invoke(failing(batch, new IllegalStateException("down"))));
+
+        // "a" came back from its retry tier with its next attempt
+        Message retried = message(QUEUE, "a");
+        retried.getMessageProperties().setHeader(RetryTopology.ATTEMPTS_HEADER, 1);
+        ProxyMethodInvocation invocation = mock(ProxyMethodInvocation.class);
+        when(invocation.getArguments()).thenReturn(new Object[]{null, List.of(retried)});
+
+        router.invoke(invocation);
+
+        verify(invocation, never()).setArguments(any());
+        verify(invocation).proceed();
+    }
+
+    @Test
+    void otherQueuesFailAsBefore() {
+        IllegalStateException error = new IllegalStateException("boom");
+
+        assertThrows(IllegalStateException.class, () -> router.invoke(failing(message("other.queue"), error)));
+        verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class));
+    }
+
+    private static Message message(String queue) {
+        MessageProperties properties = new MessageProperties();
+        properties.setConsumerQueue(queue);
+        return new Message("{}".getBytes(), properties);
+    }
+
+    private static Message message(String queue, String messageId) {
+        Message message = message(queue);
+        message.getMessageProperties().setMessageId(messageId);
+        return message;
+    }
+
+    private static MethodInvocation failing(Object data, Throwable error) throws Throwable {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.getArguments()).thenReturn(new Object[]{null, data});
+        when(invocation.proceed()).thenThrow(error);
+        return invocation;
+    }
+}
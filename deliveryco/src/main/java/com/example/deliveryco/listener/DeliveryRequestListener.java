@@ -1,6 +1,6 @@
 package com.example.deliveryco.listener;
 
-import com.example.deliveryco.dto.DeliveryRequestMessage;
+import com.example.contracts.DeliveryRequestMessage;
 import com.example.deliveryco.service.DeliveryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,15 +20,15 @@ public class DeliveryRequestListener {
                 java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS"));
         
         log.info("[{}] Received delivery request from store application", timeStr);
-        log.info("[{}] Order ID: {}", timeStr, message.getOrderId());
+        log.info("[{}] Order ID: {}", timeStr, message.orderId());
         
         try {
             deliveryService.processDeliveryRequest(message);
         } catch (Exception e) {
             log.error("[{}] Error processing delivery request for order {}: {}", 
-                    timeStr, message.getOrderId(), e.getMessage(), e);
-            // Message will be requeued if RabbitMQ is configured with retry policy
-            // This demonstrates fault tolerance - message persists even if processing fails
+                    timeStr, message.orderId(), e.getMessage(), e);
+            // Rethrown so RetryRouter parks the message in a retry queue instead of it being lost
+            throw e;
         }
     }
 }
@@ -24,6 +24,9 @@ public class Delivery {
     
     @Column(name = "status")
     private String status; // received, picked_up, in_transit, delivered, lost, cancelled
+
+    @Column(name = "status_sequence")
+    private Long statusSequence; // incremented on every status change
     
     @Column(name = "delivery_address")
     private String deliveryAddress;
@@ -1,14 +1,14 @@
 package com.example.deliveryco.service;
 
 import com.example.deliveryco.config.RabbitMQConfig;
-import com.example.deliveryco.dto.DeliveryRequestMessage;
-import com.example.deliveryco.dto.DeliveryStatusMessage;
-import com.example.deliveryco.dto.EmailRequestMessage;
+import com.example.contracts.DeliveryRequestMessage;
+import com.example.contracts.DeliveryStatusMessage;
+import com.example.contracts.EmailMessage;
+import com.example.contracts.retry.ReliablePublisher;
 import com.example.deliveryco.model.Delivery;
 import com.example.deliveryco.repository.DeliveryRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -23,7 +23,7 @@ import java.util.concurrent.CompletableFuture;
 public class DeliveryService {
 
     private final DeliveryRepository deliveryRepository;
-    private final RabbitTemplate rabbitTemplate;
+    private final ReliablePublisher reliablePublisher;
     private final Random random = new Random();
     private static final DateTimeFormatter TIMESTAMP_FORMATTER = 
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
@@ -32,32 +32,32 @@ public class DeliveryService {
         String timeStr = LocalDateTime.now().format(TIMESTAMP_FORMATTER);
         
         log.info("[{}] ========== Delivery Request Received ==========", timeStr);
-        log.info("[{}] Order ID: {}", timeStr, request.getOrderId());
-        log.info("[{}] Item: {} (Quantity: {})", timeStr, request.getItemName(), request.getQuantity());
-        log.info("[{}] Customer: {} ({})", timeStr, request.getCustomerName(), request.getCustomerEmail());
-        log.info("[{}] Delivery Address: {}", timeStr, request.getDeliveryAddress());
+        log.info("[{}] Order ID: {}", timeStr, request.orderId());
+        log.info("[{}] Item: {} (Quantity: {})", timeStr, request.itemName(), request.quantity());
+        log.info("[{}] Customer: {} ({})", timeStr, request.customerName(), request.customerEmail());
+        log.info("[{}] Delivery Address: {}", timeStr, request.deliveryAddress());
 
         // Create delivery record
         Delivery delivery = new Delivery();
-        delivery.setOrderId(request.getOrderId());
+        delivery.setOrderId(request.orderId());
         delivery.setTrackingId("TRK_" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
-        delivery.setStatus("received");
-        delivery.setDeliveryAddress(request.getDeliveryAddress());
-        delivery.setCustomerEmail(request.getCustomerEmail());
-        delivery.setCustomerName(request.getCustomerName());
-        delivery.setItemName(request.getItemName());
-        delivery.setQuantity(request.getQuantity());
+        advance(delivery, "received");
+        delivery.setDeliveryAddress(request.deliveryAddress());
+        delivery.setCustomerEmail(request.customerEmail());
+        delivery.setCustomerName(request.customerName());
+        delivery.setItemName(request.itemName());
+        delivery.setQuantity(request.quantity());
 
         deliveryRepository.save(delivery);
 
         log.info("[{}]  Delivery record created - Tracking ID: {}", timeStr, delivery.getTrackingId());
         log.info("[{}]  Status: RECEIVED - Package received at warehouse", timeStr);
         
+        // Send initial status before the flow starts, so RECEIVED always precedes the later statuses
+        sendDeliveryStatus(delivery, "received", "Package received at warehouse");
+
         // Start delivery process asynchronously
         CompletableFuture.runAsync(() -> processDeliveryFlow(delivery));
-
-        // Send initial status
-        sendDeliveryStatus(delivery, "received", "Package received at warehouse");
         
         log.info("[{}]  Delivery process started asynchronously", timeStr);
         log.info("[{}] =================================================", timeStr);
@@ -72,7 +72,7 @@ public class DeliveryService {
             if (isCancelledOrLost(delivery)) return;
 
             timeStr = LocalDateTime.now().format(TIMESTAMP_FORMATTER);
-            delivery.setStatus("picked_up");
+            advance(delivery, "picked_up");
             deliveryRepository.save(delivery);
             sendDeliveryStatus(delivery, "picked_up", "Package picked up by delivery driver");
             sendEmailNotification(delivery, "picked_up");
@@ -87,7 +87,7 @@ public class DeliveryService {
             if (isCancelledOrLost(delivery)) return;
 
             timeStr = LocalDateTime.now().format(TIMESTAMP_FORMATTER);
-            delivery.setStatus("in_transit");
+            advance(delivery, "in_transit");
             deliveryRepository.save(delivery);
             sendDeliveryStatus(delivery, "in_transit", "Package is in transit to destination");
             log.info("[{}]  Step 2/3: IN_TRANSIT - Package is in transit (Order: {}, Tracking: {})",
@@ -100,7 +100,7 @@ public class DeliveryService {
             
             if (isCancelledOrLost(delivery)) return;
             timeStr = LocalDateTime.now().format(TIMESTAMP_FORMATTER);
-            delivery.setStatus("delivered");
+            advance(delivery, "delivered");
             deliveryRepository.save(delivery);
             sendDeliveryStatus(delivery, "delivered", "Package delivered successfully");
             sendEmailNotification(delivery, "delivered");
@@ -112,7 +112,7 @@ public class DeliveryService {
             timeStr = LocalDateTime.now().format(TIMESTAMP_FORMATTER);
             log.error("[{}]  Error processing delivery flow for order {}: {}",
                     timeStr, delivery.getOrderId(), e.getMessage(), e);
-            delivery.setStatus("lost");
+            advance(delivery, "lost");
             deliveryRepository.save(delivery);
             sendDeliveryStatus(delivery, "lost", "Package lost during delivery process");
         }
@@ -135,7 +135,7 @@ public class DeliveryService {
         log.warn("[{}]   Tracking ID: {}", timeStr, delivery.getTrackingId());
         log.warn("[{}]   This triggers automatic order cancellation, refund, and email notification", timeStr);
         
-        delivery.setStatus("lost");
+        advance(delivery, "lost");
         deliveryRepository.save(delivery);
         sendDeliveryStatus(delivery, "lost", "Package lost during delivery");
         sendEmailNotification(delivery, "lost");
@@ -144,6 +144,12 @@ public class DeliveryService {
         log.warn("[{}] =================================================", timeStr);
     }
 
+    // Every status change gets the next sequence number, so the store can drop late or duplicate updates
+    private void advance(Delivery delivery, String status) {
+        delivery.setStatus(status);
+        delivery.setStatusSequence(delivery.getStatusSequence() == null ? 1L : delivery.getStatusSequence() + 1);
+    }
+
     private void delay(long milliseconds) {
         try {
             Thread.sleep(milliseconds);
@@ -160,29 +166,18 @@ public class DeliveryService {
                 status,
                 message,
                 System.currentTimeMillis(),
-                delivery.getTrackingId()
+                delivery.getTrackingId(),
+                delivery.getStatusSequence()
         );
 
-        try {
-            rabbitTemplate.convertAndSend(
-                    RabbitMQConfig.DELIVERY_EXCHANGE,
-                    RabbitMQConfig.DELIVERY_STATUS_ROUTING_KEY,
-                    statusMessage,
-                    msg -> {
-                        // Make message persistent for fault tolerance
-                        msg.getMessageProperties().setDeliveryMode(
-                                org.springframework.amqp.core.MessageDeliveryMode.PERSISTENT
-                        );
-                        return msg;
-                    }
-            );
-            log.info("[{}] Delivery status sent to store application - Order: {}, Status: {}, Tracking: {}",
-                    timeStr, delivery.getOrderId(), status.toUpperCase(), delivery.getTrackingId());
-        } catch (Exception e) {
-            log.error("[{}] Failed to send delivery status for order {}: {}",
-                    timeStr, delivery.getOrderId(), e.getMessage(), e);
-            // Retry logic could be added here for fault tolerance
-        }
+        // Confirmed and retried in the background by the publisher
+        reliablePublisher.publish(
+                RabbitMQConfig.DELIVERY_EXCHANGE,
+                RabbitMQConfig.DELIVERY_STATUS_ROUTING_KEY,
+                statusMessage
+        );
+        log.info("[{}] Delivery status queued for the store application - Order: {}, Status: {}, Tracking: {}",
+                timeStr, delivery.getOrderId(), status.toUpperCase(), delivery.getTrackingId());
     }
 
     private void sendEmailNotification(Delivery delivery, String status) {
@@ -209,26 +204,20 @@ public class DeliveryService {
                 return; // Don't send email for other statuses
         }
 
-        EmailRequestMessage emailMessage = new EmailRequestMessage(
+        EmailMessage emailMessage = new EmailMessage(
+                delivery.getOrderId().toString(),
                 delivery.getCustomerEmail(),
                 subject,
                 body,
-                delivery.getOrderId().toString(),
                 status
         );
 
-        try {
-            rabbitTemplate.convertAndSend(
-                    RabbitMQConfig.EMAIL_EXCHANGE,
-                    RabbitMQConfig.EMAIL_REQUEST_ROUTING_KEY,
-                    emailMessage
-            );
-            log.info("Email notification sent for order {}: {}",
-                    delivery.getOrderId(), status);
-        } catch (Exception e) {
-            log.error("Failed to send email notification for order {}: {}",
-                    delivery.getOrderId(), e.getMessage());
-        }
+        reliablePublisher.publish(
+                RabbitMQConfig.EMAIL_EXCHANGE,
+                RabbitMQConfig.EMAIL_REQUEST_ROUTING_KEY,
+                emailMessage
+        );
+        log.info("Email notification queued for order {}: {}",
+                delivery.getOrderId(), status);
     }
 } 
-
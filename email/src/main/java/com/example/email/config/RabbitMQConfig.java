@@ -1,12 +1,27 @@
 package com.example.email.config;
 
+import com.example.contracts.codec.CborMessageConverter;
+import com.example.contracts.codec.ContractMessageConverter;
+import com.example.contracts.listener.ListenerTuning;
+import com.example.contracts.listener.RecentMessageIds;
+import com.example.contracts.retry.DeadLetterController;
+import com.example.contracts.retry.DeadLetters;
+import com.example.contracts.retry.RetryRouter;
+import com.example.contracts.retry.RetryTopology;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
 
 @Configuration
 public class RabbitMQConfig {
@@ -33,9 +48,59 @@ public class RabbitMQConfig {
                 .with(EMAIL_REQUEST_ROUTING_KEY);
     }
 
+    @Value("${messaging.codec:json}")
+    private String codec;
+
+    // Message Converter: consumers accept JSON and CBOR by content type; messaging.codec picks what is sent,
+    // so every consumer can be upgraded before any producer switches to cbor
+    @Bean
+    public MessageConverter messageConverter() {
+        // Contract types use the precompiled codecs; Jackson only handles anything else
+        MessageConverter json = ContractMessageConverter.json(new Jackson2JsonMessageConverter());
+        MessageConverter cbor = ContractMessageConverter.cbor(new CborMessageConverter());
+        ContentTypeDelegatingMessageConverter converter =
+                new ContentTypeDelegatingMessageConverter("cbor".equalsIgnoreCase(codec) ? cbor : json);
+        converter.addDelegate(MessageProperties.CONTENT_TYPE_JSON, json);
+        converter.addDelegate(CborMessageConverter.CONTENT_TYPE, cbor);
+        return converter;
+    }
+
+    // Retry: failed messages wait in TTL retry queues, then go to a DLQ, instead of being requeued at once
+    @Bean
+    public RetryTopology retryTopology(@Value("${messaging.retry.delays-ms:1000,10000,60000}") long[] delaysMs,
+                                       @Value("${messaging.retry.max-attempts:4}") int maxAttempts) {
+        return new RetryTopology(List.of(EMAIL_REQUEST_QUEUE), delaysMs, maxAttempts);
+    }
+
+    @Bean
+    public Declarables retryQueues(RetryTopology retryTopology) {
+        return retryTopology.declarables();
+    }
+
     @Bean
-    public Jackson2JsonMessageConverter messageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public RetryRouter retryRouter(RetryTopology retryTopology, RabbitTemplate rabbitTemplate,
+                                   @Value("${messaging.retry.confirm-timeout-ms:5000}") long confirmTimeoutMs) {
+        return new RetryRouter(retryTopology, rabbitTemplate, confirmTimeoutMs);
+    }
+
+    @Bean
+    public DeadLetters deadLetters(RetryTopology retryTopology, RabbitTemplate rabbitTemplate, AmqpAdmin amqpAdmin,
+                                   @Value("${messaging.retry.confirm-timeout-ms:5000}") long confirmTimeoutMs) {
+        return new DeadLetters(retryTopology, rabbitTemplate, amqpAdmin, confirmTimeoutMs);
+    }
+
+    // No user accounts here: admins send messaging.dead-letters.admin-token in X-Admin-Token
+    @Bean
+    public DeadLetterController deadLetterController(DeadLetters deadLetters,
+                                                     @Value("${messaging.dead-letters.admin-token:}") String adminToken) {
+        return new DeadLetterController(deadLetters, DeadLetterController.adminToken(adminToken));
+    }
+
+    // Publishers resend messages whose confirm came late; repeats handled within the window are dropped
+    @Bean
+    public RecentMessageIds recentMessageIds(@Value("${messaging.dedupe.max-entries:100000}") int maxEntries,
+                                             @Value("${messaging.dedupe.window-ms:600000}") long windowMs) {
+        return new RecentMessageIds(maxEntries, windowMs);
     }
 
     @Bean
@@ -45,11 +110,23 @@ public class RabbitMQConfig {
         return template;
     }
 
+    // Consumers, prefetch and executor per queue come from messaging.listeners.* (see ListenerTuning)
+    @Bean
+    public ListenerTuning listenerTuning(Environment environment, AmqpAdmin amqpAdmin,
+                                         RabbitListenerEndpointRegistry registry,
+                                         @Value("${messaging.listeners.scale-interval-ms:5000}") long scaleIntervalMs) {
+        return new ListenerTuning(environment, amqpAdmin, registry, scaleIntervalMs);
+    }
+
     @Bean
-    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory) {
+    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory,
+                                                                               ListenerTuning listenerTuning,
+                                                                               RetryRouter retryRouter) {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
         factory.setMessageConverter(messageConverter());
+        factory.setContainerCustomizer(listenerTuning::apply);
+        factory.setAdviceChain(retryRouter);
         return factory;
     }
 }
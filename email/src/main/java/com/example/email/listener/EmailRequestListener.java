@@ -1,31 +1,33 @@
 package com.example.email.listener;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.amqp.support.AmqpHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
-import com.example.email.dto.EmailMessage;
+import com.example.contracts.EmailMessage;
+import com.example.contracts.listener.RecentMessageIds;
 import com.example.email.service.EmailService;
-import com.rabbitmq.client.Channel;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class EmailRequestListener {
 
     private final EmailService emailService;
+    private final RecentMessageIds recentMessageIds;
 
-    @RabbitListener(queues = "email.request.queue", containerFactory = "rabbitListenerContainerFactory", ackMode = "MANUAL")
-    public void handleEmailRequest(EmailMessage message, Channel channel, @Header(AmqpHeaders.DELIVERY_TAG) long tag) {
-        try {
-            emailService.sendEmail(message);
-            channel.basicAck(tag, false);
-        } catch (Exception e) {
-            try {
-                channel.basicNack(tag, false, true);
-            } catch (Exception nackException) {
-                System.err.println("Failed to nack message: " + nackException.getMessage());
-            }
+    // A failure is acked and parked in a retry queue by RetryRouter, so a bad message no longer loops.
+    // deliveryco resends requests whose confirm came late: an id already mailed recently is not mailed again
+    @RabbitListener(queues = "email.request.queue", containerFactory = "rabbitListenerContainerFactory")
+    public void handleEmailRequest(EmailMessage message,
+                                   @Header(name = AmqpHeaders.MESSAGE_ID, required = false) String messageId) {
+        if (recentMessageIds.contains(messageId)) {
+            log.info("Dropped repeated email request {} for order {}", messageId, message.orderId());
+            return;
         }
+        emailService.sendEmail(message);
+        recentMessageIds.add(messageId);
     }
 }
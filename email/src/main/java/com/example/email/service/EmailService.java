@@ -2,7 +2,7 @@ package com.example.email.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import com.example.email.dto.EmailMessage;
+import com.example.contracts.EmailMessage;
 
 @Service
 @RequiredArgsConstructor
@@ -10,14 +10,14 @@ public class EmailService {
 
     public void sendEmail(EmailMessage message) {
         System.out.println("=== EMAIL SENT ===");
-        System.out.println("Order ID: " + message.getOrderId());
-        System.out.println("To: " + message.getToAddress());
-        if (message.getSubject() != null) {
-            System.out.println("Subject: " + message.getSubject());
+        System.out.println("Order ID: " + message.orderId());
+        System.out.println("To: " + message.toAddress());
+        if (message.subject() != null) {
+            System.out.println("Subject: " + message.subject());
         }
-        System.out.println("Message: " + message.getBody());
-        if (message.getStatus() != null) {
-            System.out.println("Status: " + message.getStatus());
+        System.out.println("Message: " + message.body());
+        if (message.status() != null) {
+            System.out.println("Status: " + message.status());
         }
         System.out.println("==================");
     }
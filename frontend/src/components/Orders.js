@@ -14,7 +14,11 @@ const Orders = () => {
   const [cancellingOrderId, setCancellingOrderId] = useState(null);
   const [payingOrderId, setPayingOrderId] = useState(null);
   const [successMessage, setSuccessMessage] = useState("");
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const autoRefreshInterval = useRef(null);
+  // Pages shown so far, so a refresh reloads as many as the user has scrolled through
+  const pagesLoaded = useRef(1);
 
   const loadOrders = useCallback(async (silent = false) => {
     try {
@@ -24,14 +28,20 @@ const Orders = () => {
         setRefreshing(true);
       }
       setError("");
-      const response = await orderService.getAllOrders();
-      // Sort orders by creation time, newest first
-      const sortedOrders = response.data.sort((a, b) => {
-        const dateA = new Date(a.createdAt || 0);
-        const dateB = new Date(b.createdAt || 0);
-        return dateB - dateA;
-      });
-      setOrders(sortedOrders);
+      const pages = pagesLoaded.current;
+      let loaded = [];
+      let cursor = null;
+      for (let page = 0; page < pages; page++) {
+        const result = await orderService.getOrdersPage(cursor);
+        loaded = loaded.concat(result.orders);
+        cursor = result.nextCursor;
+        if (!cursor) {
+          break;
+        }
+      }
+      // Pages arrive newest first
+      setOrders(loaded);
+      setNextCursor(cursor);
     } catch (err) {
       setError(
         err.response?.data?.message ||
@@ -45,6 +55,26 @@ const Orders = () => {
     }
   }, []);
 
+  const handleLoadMore = async () => {
+    try {
+      setLoadingMore(true);
+      setError("");
+      const result = await orderService.getOrdersPage(nextCursor);
+      pagesLoaded.current += 1;
+      setOrders((current) => current.concat(result.orders));
+      setNextCursor(result.nextCursor);
+    } catch (err) {
+      setError(
+        err.response?.data?.message ||
+        err.message ||
+        "Failed to load orders"
+      );
+      console.error("Error loading more orders:", err);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const handleRefresh = () => {
     loadOrders(false);
   };
@@ -355,20 +385,34 @@ const Orders = () => {
                   </span>
                 </div>
                 <div className="order-card-body">
-                  <div className="order-info-row">
-                    <span className="order-label">Item ID:</span>
-                    <span className="order-value">#{order.itemId}</span>
-                  </div>
-                  <div className="order-info-row">
-                    <span className="order-label">Quantity:</span>
-                    <span className="order-value">{order.quantity}</span>
-                  </div>
-                  <div className="order-info-row">
-                    <span className="order-label">Price:</span>
-                    <span className="order-value price">
-                      {formatPrice(order.price)}
-                    </span>
-                  </div>
+                  {order.lines ? (
+                    // Cart order: one row per item, the order price is already the cart total
+                    order.lines.map((line) => (
+                      <div key={line.itemId} className="order-info-row">
+                        <span className="order-label">Item #{line.itemId}:</span>
+                        <span className="order-value">
+                          {line.quantity} x {formatPrice(line.price)}
+                        </span>
+                      </div>
+                    ))
+                  ) : (
+                    <>
+                      <div className="order-info-row">
+                        <span className="order-label">Item ID:</span>
+                        <span className="order-value">#{order.itemId}</span>
+                      </div>
+                      <div className="order-info-row">
+                        <span className="order-label">Quantity:</span>
+                        <span className="order-value">{order.quantity}</span>
+                      </div>
+                      <div className="order-info-row">
+                        <span className="order-label">Price:</span>
+                        <span className="order-value price">
+                          {formatPrice(order.price)}
+                        </span>
+                      </div>
+                    </>
+                  )}
                   <div className="order-info-row">
                     <span className="order-label">Total:</span>
                     <span className="order-value price total">
@@ -436,6 +480,17 @@ const Orders = () => {
                 </div>
               </div>
             ))}
+            {nextCursor && (
+              <div className="text-center mt-3 mb-4">
+                <button
+                  className="btn btn-outline-primary"
+                  onClick={handleLoadMore}
+                  disabled={loadingMore}
+                >
+                  {loadingMore ? "Loading..." : "Load more orders"}
+                </button>
+              </div>
+            )}
           </div>
         )}
       </div>
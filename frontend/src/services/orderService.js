@@ -7,8 +7,15 @@ const createOrder = (itemId, quantity) => {
   });
 };
 
-const getAllOrders = () => {
-  return http.get("/orders");
+// One page of the caller's orders, newest first; nextCursor is null on the last page
+const getOrdersPage = async (cursor) => {
+  const response = await http.get("/orders", {
+    params: cursor ? { cursor } : {}
+  });
+  return {
+    orders: response.data,
+    nextCursor: response.headers["x-next-cursor"] || null
+  };
 };
 
 const getOrderById = (id) => {
@@ -25,7 +32,7 @@ const cancelOrder = (orderId) => {
 
 export default {
   createOrder,
-  getAllOrders,
+  getOrdersPage,
   getOrderById,
   processPayment,
   cancelOrder
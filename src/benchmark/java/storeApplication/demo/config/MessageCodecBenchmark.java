@@ -0,0 +1,95 @@
+package storeApplication.demo.config;
+
+import com.example.contracts.DeliveryStatusMessage;
+import com.example.contracts.EmailMessage;
+import com.example.contracts.PaymentRequestMessage;
+import com.example.contracts.codec.CborMessageConverter;
+import com.example.contracts.codec.ContractMessageConverter;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Wire size and encode/decode cost per message, JSON against CBOR and Jackson databind against the
+ * precompiled contract codecs, for the three busiest messages. Run with ./gradlew benchmark;
+ * the behaviour is covered by MessageCodecTests.
+ */
+class MessageCodecBenchmark {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+
+    private static final List<Object> MESSAGES = List.of(
+            new PaymentRequestMessage(1234567, "ACC-CUSTOMER-0001", "ACC-STORE-0001", 249.99,
+                    "7d3f1c2e-5a4b-4c8e-9f61-2b0a9d8e7c65"),
+            new DeliveryStatusMessage(1234567, "in_transit", "Package is in transit to destination",
+                    1_760_000_000_000L, "TRK_9F3A21C7", 3L),
+            new EmailMessage("1234567", "customer@example.com", "Your package has been picked up",
+                    "Dear Alex,\n\nYour order #1234567 (Mechanical keyboard) has been picked up and is on its way!"
+                            + "\n\nTracking ID: TRK_9F3A21C7\n\nBest regards,\nDeliveryCo Team", "picked_up"));
+
+    @Test
+    void jsonAgainstCbor() {
+        Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter();
+        CborMessageConverter cbor = new CborMessageConverter();
+
+        for (Object payload : MESSAGES) {
+            Result jsonResult = measure(json, payload);
+            Result cborResult = measure(cbor, payload);
+            System.out.printf("%-22s json: %4d bytes, encode %5d ns/op, decode %5d ns/op | "
+                            + "cbor: %4d bytes, encode %5d ns/op, decode %5d ns/op%n",
+                    payload.getClass().getSimpleName(), jsonResult.bytes(), jsonResult.encodeNanos(),
+                    jsonResult.decodeNanos(), cborResult.bytes(), cborResult.encodeNanos(), cborResult.decodeNanos());
+        }
+    }
+
+    @Test
+    void databindAgainstContractCodecs() {
+        List<MessageConverter> databind = List.of(new Jackson2JsonMessageConverter(), new CborMessageConverter());
+        List<MessageConverter> contracts = List.of(ContractMessageConverter.json(new Jackson2JsonMessageConverter()),
+                ContractMessageConverter.cbor(new CborMessageConverter()));
+
+        for (int format = 0; format < 2; format++) {
+            for (Object payload : MESSAGES) {
+                Result databindResult = measure(databind.get(format), payload);
+                Result contractResult = measure(contracts.get(format), payload);
+                System.out.printf("%-27s databind: encode %5d ns/op, decode %5d ns/op | "
+                                + "contract: encode %5d ns/op, decode %5d ns/op%n",
+                        payload.getClass().getSimpleName() + (format == 0 ? " json" : " cbor"),
+                        databindResult.encodeNanos(), databindResult.decodeNanos(),
+                        contractResult.encodeNanos(), contractResult.decodeNanos());
+            }
+        }
+    }
+
+    private static Result measure(MessageConverter converter, Object payload) {
+        Message encoded = converter.toMessage(payload, new MessageProperties());
+        for (int i = 0; i < WARMUP; i++) {
+            converter.fromMessage(converter.toMessage(payload, new MessageProperties()));
+        }
+
+        long started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            converter.toMessage(payload, new MessageProperties());
+        }
+        long encodeNanos = (System.nanoTime() - started) / ITERATIONS;
+
+        started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            converter.fromMessage(encoded);
+        }
+        long decodeNanos = (System.nanoTime() - started) / ITERATIONS;
+
+        assertEquals(payload, converter.fromMessage(encoded));
+        return new Result(encoded.getBody().length, encodeNanos, decodeNanos);
+    }
+
+    private record Result(int bytes, long encodeNanos, long decodeNanos) {
+    }
+}
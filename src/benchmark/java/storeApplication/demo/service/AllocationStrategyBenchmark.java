@@ -0,0 +1,72 @@
+package storeApplication.demo.service;
+
+import org.junit.jupiter.api.Test;
+import storeApplication.demo.dto.StockAllocation;
+import storeApplication.demo.repository.WarehouseStockRepository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Compares the greedy and fewest-warehouses strategies on synthetic stock (1k items, 50 warehouses):
+ * allocation rows and warehouses per order, and planning time. Run with ./gradlew benchmark;
+ * the strategies' behaviour is covered by AllocationStrategyTests.
+ */
+class AllocationStrategyBenchmark {
+
+    private static final int ITEMS = 1_000;
+    private static final int WAREHOUSES = 50;
+    private static final int ORDERS = 20_000;
+
+    @Test
+    void greedyAgainstFewestWarehouses() {
+        Random random = new Random(42);
+        List<StockAllocation> stock = new ArrayList<>();
+        for (int item = 1; item <= ITEMS; item++) {
+            for (int warehouse = 1; warehouse <= WAREHOUSES; warehouse++) {
+                // sparse, uneven stock: each item is kept in roughly a third of the warehouses
+                if (random.nextInt(3) == 0) {
+                    stock.add(new StockAllocation(item, warehouse, 1 + random.nextInt(20)));
+                }
+            }
+        }
+        WarehouseStockIndex index = new WarehouseStockIndex(mock(WarehouseStockRepository.class));
+        index.load(stock);
+
+        List<Map<Integer, Integer>> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            Map<Integer, Integer> lines = new LinkedHashMap<>();
+            int lineCount = 1 + random.nextInt(5);
+            while (lines.size() < lineCount) {
+                lines.put(1 + random.nextInt(ITEMS), 1 + random.nextInt(8));
+            }
+            orders.add(lines);
+        }
+
+        run("greedy", new GreedyAllocationStrategy(index), orders);
+        run("optimized", new FewestWarehousesAllocationStrategy(index), orders);
+    }
+
+    private static void run(String name, AllocationStrategy strategy, List<Map<Integer, Integer>> orders) {
+        // warm-up so the timed pass is not dominated by class loading and JIT
+        orders.subList(0, 2_000).forEach(strategy::plan);
+
+        long rows = 0;
+        long warehouses = 0;
+        long started = System.nanoTime();
+        for (Map<Integer, Integer> lines : orders) {
+            List<StockAllocation> plan = strategy.plan(lines);
+            rows += plan.size();
+            warehouses += plan.stream().map(StockAllocation::getWarehouseId).distinct().count();
+        }
+        long nanos = System.nanoTime() - started;
+
+        System.out.printf("%-9s allocation rows/order=%.2f warehouses/order=%.2f plan=%d ns/op%n",
+                name, (double) rows / orders.size(), (double) warehouses / orders.size(), nanos / orders.size());
+    }
+}
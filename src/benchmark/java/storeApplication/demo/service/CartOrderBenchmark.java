@@ -0,0 +1,128 @@
+package storeApplication.demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import storeApplication.demo.dto.CartOrderRequest;
+import storeApplication.demo.model.Item;
+import storeApplication.demo.model.User;
+import storeApplication.demo.model.Warehouse;
+import storeApplication.demo.model.WarehouseStock;
+import storeApplication.demo.model.WarehouseStockId;
+import storeApplication.demo.repository.ItemRepository;
+import storeApplication.demo.repository.OrderAllocationRepository;
+import storeApplication.demo.repository.OrderLineRepository;
+import storeApplication.demo.repository.OrderRepository;
+import storeApplication.demo.repository.UserRepository;
+import storeApplication.demo.repository.WarehouseRepository;
+import storeApplication.demo.repository.WarehouseStockRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * A five-item checkout done as five single-item orders (the per-item flow) against one cart order, on H2:
+ * orders created per checkout (each one costs a payment request and a delivery message) and checkouts/sec.
+ * Run with ./gradlew benchmark; cart behaviour is covered by CartOrderServiceTests.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CartOrderBenchmark {
+
+    private static final int ITEMS_PER_CHECKOUT = 5;
+    private static final int WARMUP = 100;
+    private static final int CHECKOUTS = 1_000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private WarehouseStockRepository warehouseStockRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+
+    @Autowired
+    private OrderAllocationRepository orderAllocationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void perItemOrdersAgainstOneCartOrder() {
+        WarehouseStockIndex index = new WarehouseStockIndex(warehouseStockRepository);
+        StockReservationService reservations = new StockReservationService(warehouseStockRepository,
+                orderAllocationRepository, new GreedyAllocationStrategy(index), index);
+        CartOrderService service = new CartOrderService(orderRepository, orderLineRepository, itemRepository,
+                reservations, mock(HotSkuService.class), mock(ProductCatalogCache.class), transactionManager);
+
+        User user = new User();
+        user.setUsername("buyer-" + System.nanoTime());
+        user.setEmailAddress("buyer@example.com");
+        user.setPassword("secret");
+        Integer userId = userRepository.save(user).getId();
+        List<CartOrderRequest.Line> cart = cart();
+
+        Runnable perItem = () -> cart.forEach(line -> service.createCartOrder(userId, List.of(line)));
+        Runnable oneCart = () -> service.createCartOrder(userId, cart);
+        run(perItem, WARMUP);
+        run(oneCart, WARMUP);
+
+        long ordersBefore = orderRepository.count();
+        long perItemNanos = run(perItem, CHECKOUTS);
+        long perItemOrders = orderRepository.count() - ordersBefore;
+        ordersBefore = orderRepository.count();
+        long cartNanos = run(oneCart, CHECKOUTS);
+        long cartOrders = orderRepository.count() - ordersBefore;
+
+        System.out.printf("per-item per checkout: orders=%.1f (payment + delivery messages each), checkouts/sec=%.0f%n",
+                (double) perItemOrders / CHECKOUTS, CHECKOUTS / (perItemNanos / 1e9));
+        System.out.printf("cart     per checkout: orders=%.1f (payment + delivery messages each), checkouts/sec=%.0f%n",
+                (double) cartOrders / CHECKOUTS, CHECKOUTS / (cartNanos / 1e9));
+    }
+
+    private List<CartOrderRequest.Line> cart() {
+        Warehouse warehouse = new Warehouse();
+        warehouse.setName("warehouse");
+        Integer warehouseId = warehouseRepository.save(warehouse).getId();
+        List<CartOrderRequest.Line> lines = new ArrayList<>();
+        for (int i = 0; i < ITEMS_PER_CHECKOUT; i++) {
+            Item item = new Item();
+            item.setName("item-" + i);
+            item.setPrice(BigDecimal.TEN);
+            Integer itemId = itemRepository.save(item).getId();
+            WarehouseStock stock = new WarehouseStock();
+            stock.setId(new WarehouseStockId(itemId, warehouseId));
+            stock.setQuantity(4 * (WARMUP + CHECKOUTS));
+            warehouseStockRepository.save(stock);
+            lines.add(new CartOrderRequest.Line(itemId, 1));
+        }
+        return lines;
+    }
+
+    private static long run(Runnable checkout, int checkouts) {
+        long started = System.nanoTime();
+        for (int i = 0; i < checkouts; i++) {
+            checkout.run();
+        }
+        return System.nanoTime() - started;
+    }
+}
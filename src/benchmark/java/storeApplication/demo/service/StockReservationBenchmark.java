@@ -0,0 +1,117 @@
+package storeApplication.demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import storeApplication.demo.model.Item;
+import storeApplication.demo.model.Warehouse;
+import storeApplication.demo.model.WarehouseStock;
+import storeApplication.demo.model.WarehouseStockId;
+import storeApplication.demo.repository.ItemRepository;
+import storeApplication.demo.repository.OrderAllocationRepository;
+import storeApplication.demo.repository.WarehouseRepository;
+import storeApplication.demo.repository.WarehouseStockRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Orders/sec of the reservation engine at 1, 8 and 64 concurrent buyers of one SKU, against the real
+ * conditional decrements on H2. Run with ./gradlew benchmark; overselling is covered by StockReservationServiceTests.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockReservationBenchmark {
+
+    private static final int WAREHOUSES = 5;
+    private static final int STOCK_PER_WAREHOUSE = 2_000;
+    private static final int ORDERS = 5_000;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private WarehouseStockRepository warehouseStockRepository;
+
+    @Autowired
+    private OrderAllocationRepository orderAllocationRepository;
+
+    @Test
+    void ordersPerSecondByBuyers() throws Exception {
+        List<Integer> warehouseIds = new ArrayList<>();
+        for (int w = 0; w < WAREHOUSES; w++) {
+            Warehouse warehouse = new Warehouse();
+            warehouse.setName("warehouse-" + w);
+            warehouseIds.add(warehouseRepository.save(warehouse).getId());
+        }
+
+        for (int buyers : new int[]{1, 8, 64}) {
+            Integer itemId = itemWithStock(warehouseIds);
+            WarehouseStockIndex index = new WarehouseStockIndex(warehouseStockRepository);
+            StockReservationService service = new StockReservationService(warehouseStockRepository,
+                    orderAllocationRepository, new GreedyAllocationStrategy(index), index);
+
+            AtomicInteger attempted = new AtomicInteger();
+            AtomicInteger succeeded = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService pool = Executors.newFixedThreadPool(buyers);
+            List<Future<?>> running = new ArrayList<>();
+            for (int b = 0; b < buyers; b++) {
+                running.add(pool.submit(() -> {
+                    start.await();
+                    int attempt;
+                    while ((attempt = attempted.incrementAndGet()) <= ORDERS) {
+                        try {
+                            service.reserve(itemId, 1 + attempt % 3);
+                            succeeded.incrementAndGet();
+                        } catch (RuntimeException soldOut) {
+                            // expected once the SKU is sold out
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            long started = System.nanoTime();
+            start.countDown();
+            pool.shutdown();
+            pool.awaitTermination(5, TimeUnit.MINUTES);
+            double seconds = (System.nanoTime() - started) / 1e9;
+            for (Future<?> buyer : running) {
+                buyer.get();
+            }
+
+            System.out.printf("buyers=%d orders=%d reserved=%d orders/sec=%.0f%n",
+                    buyers, ORDERS, succeeded.get(), ORDERS / seconds);
+        }
+    }
+
+    private Integer itemWithStock(List<Integer> warehouseIds) {
+        Item item = new Item();
+        item.setName("item");
+        item.setPrice(BigDecimal.TEN);
+        Integer itemId = itemRepository.save(item).getId();
+        for (Integer warehouseId : warehouseIds) {
+            WarehouseStock stock = new WarehouseStock();
+            stock.setId(new WarehouseStockId(itemId, warehouseId));
+            stock.setQuantity(STOCK_PER_WAREHOUSE);
+            warehouseStockRepository.save(stock);
+        }
+        return itemId;
+    }
+}
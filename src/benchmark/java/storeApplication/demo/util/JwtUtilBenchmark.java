@@ -0,0 +1,66 @@
+package storeApplication.demo.util;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Auth overhead per request. Before: the filter parsed the token twice (username, then validation)
+ * and the controller a third time, each parse building a new key and parser. After: one cached
+ * verification in the filter, and controllers read the principal from the request.
+ * Run with ./gradlew benchmark; the cache's behaviour is covered by JwtUtilTests.
+ */
+class JwtUtilBenchmark {
+
+    private static final String SECRET = "mySecretKey123456789012345678901234567890";
+    private static final int USERS = 100;
+    private static final int REQUESTS = 20_000;
+
+    @Test
+    void authOverheadPerRequest() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxEntries", 10_000);
+        jwtUtil.init();
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            tokens.add(jwtUtil.generateToken("user-" + i));
+        }
+
+        Consumer<String> before = token -> {
+            for (int parse = 0; parse < 3; parse++) {
+                Jwts.parserBuilder()
+                        .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                        .build()
+                        .parseClaimsJws(token)
+                        .getBody()
+                        .getSubject();
+            }
+        };
+        Consumer<String> after = jwtUtil::getUsernameFromToken;
+
+        // warm-up so the timed pass is not dominated by class loading and JIT
+        run(tokens, before, 2_000);
+        run(tokens, after, 2_000);
+
+        long beforeNanos = run(tokens, before, REQUESTS);
+        long afterNanos = run(tokens, after, REQUESTS);
+
+        System.out.printf("auth overhead per request: before=%d ns after=%d ns%n",
+                beforeNanos / REQUESTS, afterNanos / REQUESTS);
+    }
+
+    private static long run(List<String> tokens, Consumer<String> authenticate, int requests) {
+        long started = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            authenticate.accept(tokens.get(i % tokens.size()));
+        }
+        return System.nanoTime() - started;
+    }
+}
@@ -0,0 +1,44 @@
+package storeApplication.demo.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+@Configuration
+public class BankClientConfig {
+
+    // Dedicated pool for the bank: kept-alive connections, bounded waiting for one, idle ones evicted
+    @Bean
+    public WebClient bankWebClient(WebClient.Builder builder,
+                                   @Value("${bank.base-url:http://localhost:8082}") String baseUrl,
+                                   @Value("${bank.client.max-connections:50}") int maxConnections,
+                                   @Value("${bank.client.pending-acquire-timeout-ms:500}") long pendingAcquireTimeoutMs,
+                                   @Value("${bank.client.max-idle-ms:30000}") long maxIdleMs,
+                                   @Value("${bank.client.connect-timeout-ms:1000}") int connectTimeoutMs,
+                                   @Value("${bank.client.response-timeout-ms:3000}") long responseTimeoutMs) {
+        ConnectionProvider provider = ConnectionProvider.builder("bank")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(maxConnections * 2)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleMs))
+                .maxLifeTime(Duration.ofMinutes(5))
+                .evictInBackground(Duration.ofSeconds(30))
+                .build();
+        HttpClient httpClient = HttpClient.create(provider)
+                .keepAlive(true)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
+        return builder
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
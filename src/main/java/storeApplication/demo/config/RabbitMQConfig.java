@@ -1,12 +1,25 @@
 package storeApplication.demo.config;
 
+import com.example.contracts.codec.CborMessageConverter;
+import com.example.contracts.codec.ContractMessageConverter;
+import com.example.contracts.listener.RecentMessageIds;
+import com.example.contracts.retry.DeadLetterController;
+import com.example.contracts.retry.DeadLetters;
+import com.example.contracts.retry.RetryRouter;
+import com.example.contracts.retry.RetryTopology;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import storeApplication.demo.security.AuthenticatedUser;
+
+import java.util.List;
 
 @Configuration
 public class RabbitMQConfig {
@@ -114,10 +127,51 @@ public class RabbitMQConfig {
                 .with(EMAIL_REQUEST_ROUTING_KEY);
     }
 
-    // Message Converter
+    @Value("${messaging.codec:json}")
+    private String codec;
+
+    // Message Converter: consumers accept JSON and CBOR by content type; messaging.codec picks what is sent,
+    // so every consumer can be upgraded before any producer switches to cbor
+    @Bean
+    public MessageConverter messageConverter() {
+        // Contract types use the precompiled codecs; Jackson only handles anything else
+        MessageConverter json = ContractMessageConverter.json(new Jackson2JsonMessageConverter());
+        MessageConverter cbor = ContractMessageConverter.cbor(new CborMessageConverter());
+        ContentTypeDelegatingMessageConverter converter =
+                new ContentTypeDelegatingMessageConverter("cbor".equalsIgnoreCase(codec) ? cbor : json);
+        converter.addDelegate(MessageProperties.CONTENT_TYPE_JSON, json);
+        converter.addDelegate(CborMessageConverter.CONTENT_TYPE, cbor);
+        return converter;
+    }
+
+    // Retry: failed messages wait in TTL retry queues, then go to a DLQ, instead of being requeued at once
+    @Bean
+    public RetryTopology retryTopology(@Value("${messaging.retry.delays-ms:1000,10000,60000}") long[] delaysMs,
+                                       @Value("${messaging.retry.max-attempts:4}") int maxAttempts) {
+        return new RetryTopology(List.of(PAYMENT_RESPONSE_QUEUE, DELIVERY_STATUS_QUEUE), delaysMs, maxAttempts);
+    }
+
+    @Bean
+    public Declarables retryQueues(RetryTopology retryTopology) {
+        return retryTopology.declarables();
+    }
+
+    @Bean
+    public RetryRouter retryRouter(RetryTopology retryTopology, RabbitTemplate rabbitTemplate,
+                                   @Value("${messaging.retry.confirm-timeout-ms:5000}") long confirmTimeoutMs) {
+        return new RetryRouter(retryTopology, rabbitTemplate, confirmTimeoutMs);
+    }
+
     @Bean
-    public Jackson2JsonMessageConverter messageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public DeadLetters deadLetters(RetryTopology retryTopology, RabbitTemplate rabbitTemplate, AmqpAdmin amqpAdmin,
+                                   @Value("${messaging.retry.confirm-timeout-ms:5000}") long confirmTimeoutMs) {
+        return new DeadLetters(retryTopology, rabbitTemplate, amqpAdmin, confirmTimeoutMs);
+    }
+
+    // Admins only; SecurityConfig also requires the role for /api/dead-letters/**
+    @Bean
+    public DeadLetterController deadLetterController(DeadLetters deadLetters) {
+        return new DeadLetterController(deadLetters, DeadLetterController.hasRole(AuthenticatedUser.ADMIN));
     }
 
     // RabbitTemplate
@@ -130,10 +184,41 @@ public class RabbitMQConfig {
 
     // Ensure @RabbitListener uses JSON converter
     @Bean
-    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory) {
+    public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory,
+                                                                               RetryRouter retryRouter) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(messageConverter());
+        factory.setAdviceChain(retryRouter);
+        return factory;
+    }
+
+    // Publishers resend messages whose confirm came late; repeats handled within the window are dropped
+    @Bean
+    public RecentMessageIds recentMessageIds(@Value("${messaging.dedupe.max-entries:100000}") int maxEntries,
+                                             @Value("${messaging.dedupe.window-ms:600000}") long windowMs) {
+        return new RecentMessageIds(maxEntries, windowMs);
+    }
+
+    // One consumer keeps the queue's order and hands out batches of up to batch-size messages, or whatever
+    // arrived within max-wait-ms; OrderLanes spreads each batch over threads, one lane per order
+    @Bean
+    public SimpleRabbitListenerContainerFactory orderLaneContainerFactory(ConnectionFactory connectionFactory,
+                                                                          @Value("${orders.lanes.batch-size:100}") int batchSize,
+                                                                          @Value("${orders.lanes.max-wait-ms:50}") long maxWaitMs,
+                                                                          RetryRouter retryRouter) {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
         factory.setMessageConverter(messageConverter());
+        factory.setConcurrentConsumers(1);
+        factory.setMaxConcurrentConsumers(1);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(maxWaitMs);
+        factory.setPrefetchCount(batchSize * 2);
+        // OrderLanes reports which messages of a batch failed, and only those are retried
+        factory.setAdviceChain(retryRouter);
         return factory;
     }
 }
@@ -1,15 +1,18 @@
 package storeApplication.demo.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import storeApplication.demo.security.AuthenticatedUser;
+import storeApplication.demo.security.BoundedBCryptPasswordEncoder;
 import storeApplication.demo.security.JwtAuthenticationFilter;
 
 @Configuration
@@ -20,8 +23,17 @@ public class SecurityConfig {
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${auth.bcrypt.target-ms:250}") long targetMillis,
+                                           @Value("${auth.bcrypt.min-strength:10}") int minStrength,
+                                           @Value("${auth.bcrypt.max-strength:14}") int maxStrength,
+                                           @Value("${auth.bcrypt.threads:0}") int threads,
+                                           @Value("${auth.bcrypt.queue-capacity:0}") int queueCapacity) {
+        // Calibrated once at startup, so a login costs about the target latency on this hardware
+        int strength = BoundedBCryptPasswordEncoder.calibrateStrength(targetMillis, minStrength, maxStrength);
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        int queue = queueCapacity > 0 ? queueCapacity : poolSize * 4;
+        return new BoundedBCryptPasswordEncoder(strength, poolSize, queue, meterRegistry);
     }
 
     @Bean
@@ -33,7 +45,10 @@ public class SecurityConfig {
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/api/items/**").permitAll()
                 .requestMatchers("/api/warehouses/**").permitAll()
+                .requestMatchers("/api/warehouse-stocks/bulk").hasRole(AuthenticatedUser.ADMIN)
                 .requestMatchers("/api/warehouse-stocks/**").permitAll()
+                .requestMatchers("/api/orders/export").hasRole(AuthenticatedUser.ADMIN)
+                .requestMatchers("/api/dead-letters/**").hasRole(AuthenticatedUser.ADMIN)
                 .requestMatchers("/api/orders/**").permitAll()
                 .anyRequest().authenticated()
             )
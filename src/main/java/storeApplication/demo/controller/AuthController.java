@@ -1,13 +1,21 @@
 package storeApplication.demo.controller;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import storeApplication.demo.dto.AuthResponse;
 import storeApplication.demo.dto.LoginRequest;
 import storeApplication.demo.dto.RegisterRequest;
+import storeApplication.demo.security.TokenRevocationService;
 import storeApplication.demo.service.AuthService;
+import storeApplication.demo.service.LoginService;
+import storeApplication.demo.util.JwtUtil;
+
+import java.util.concurrent.RejectedExecutionException;
 
 @Slf4j
 @RestController
@@ -17,12 +25,20 @@ import storeApplication.demo.service.AuthService;
 public class AuthController {
 
     private final AuthService authService;
+    private final LoginService loginService;
+    private final JwtUtil jwtUtil;
+    private final TokenRevocationService tokenRevocationService;
 
     @PostMapping("/register")
     public ResponseEntity<AuthResponse> register(@RequestBody RegisterRequest request) {
         try {
-            AuthResponse response = authService.register(request);
-            return ResponseEntity.ok(response);
+            // New users have no roles; their token resolves the user id through the cached fallback
+            // until the next login issues one with the claim
+            return ResponseEntity.ok(authService.register(request));
+        } catch (RejectedExecutionException e) {
+            log.warn("Registration rejected, password hashing pool is full");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new AuthResponse(null, null, null, e.getMessage()));
         } catch (RuntimeException e) {
             log.error("Registration failed: {}", e.getMessage());
             return ResponseEntity.badRequest()
@@ -33,8 +49,11 @@ public class AuthController {
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(@RequestBody LoginRequest request) {
         try {
-            AuthResponse response = authService.login(request);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(loginService.login(request));
+        } catch (RejectedExecutionException e) {
+            log.warn("Login rejected, password hashing pool is full");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new AuthResponse(null, null, null, e.getMessage()));
         } catch (RuntimeException e) {
             log.error("Login failed: {}", e.getMessage());
             return ResponseEntity.badRequest()
@@ -43,7 +62,17 @@ public class AuthController {
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<String> logout() {
+    public ResponseEntity<String> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            String token = authHeader.substring(7);
+            try {
+                Claims claims = jwtUtil.getVerifiedClaims(token);
+                tokenRevocationService.revoke(JwtUtil.tokenId(token, claims), claims.getSubject(), claims.getExpiration());
+            } catch (JwtException | IllegalArgumentException e) {
+                // Nothing to revoke: the token is already unusable
+                log.debug("Logout with invalid token: {}", e.getMessage());
+            }
+        }
         log.info("User logged out");
         return ResponseEntity.ok("Logout successful");
     }
@@ -4,11 +4,16 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import storeApplication.demo.dto.CreateItemRequest;
+import storeApplication.demo.dto.ItemResponse;
 import storeApplication.demo.dto.ProductResponse;
 import storeApplication.demo.model.Item;
+import storeApplication.demo.repository.ItemRepository;
+import storeApplication.demo.service.HotSkuService;
 import storeApplication.demo.service.ItemService;
+import storeApplication.demo.service.ProductCatalogCache;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
@@ -17,11 +22,14 @@ import java.util.List;
 public class ItemController {
 
     private final ItemService itemService;
+    private final ProductCatalogCache productCatalogCache;
+    private final HotSkuService hotSkuService;
+    private final ItemRepository itemRepository;
 
     @GetMapping("/items")
-    public ResponseEntity<List<Item>> getAllItems() {
+    public ResponseEntity<List<ItemResponse>> getAllItems() {
         try {
-            List<Item> items = itemService.getAllItems();
+            List<ItemResponse> items = itemRepository.findAllResponses();
             return ResponseEntity.ok(items);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -34,7 +42,7 @@ public class ItemController {
     @GetMapping("/products")
     public ResponseEntity<List<ProductResponse>> getAllProducts() {
         try {
-            List<ProductResponse> products = itemService.getAllProducts();
+            List<ProductResponse> products = productCatalogCache.getProducts();
             return ResponseEntity.ok(products);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -42,10 +50,34 @@ public class ItemController {
     }
 
     @PostMapping("/items")
-    public ResponseEntity<Item> createItem(@RequestBody CreateItemRequest request) {
+    public ResponseEntity<ItemResponse> createItem(@RequestBody CreateItemRequest request) {
         try {
             Item item = itemService.createItem(request);
-            return ResponseEntity.ok(item);
+            productCatalogCache.invalidate();
+            return ResponseEntity.ok(new ItemResponse(item.getId(), item.getName(), item.getPrice()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Switch an item into flash-sale (hot SKU) mode, where orders claim stock from in-memory counters
+     */
+    @PostMapping("/items/{id}/hot")
+    public ResponseEntity<Map<String, Object>> enableHotSku(@PathVariable Integer id) {
+        try {
+            int available = hotSkuService.enable(id);
+            return ResponseEntity.ok(Map.of("itemId", id, "hot", true, "available", available));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("/items/{id}/hot")
+    public ResponseEntity<Map<String, Object>> disableHotSku(@PathVariable Integer id) {
+        try {
+            hotSkuService.disable(id);
+            return ResponseEntity.ok(Map.of("itemId", id, "hot", false));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
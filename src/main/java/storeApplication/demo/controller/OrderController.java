@@ -1,61 +1,156 @@
 package storeApplication.demo.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+import storeApplication.demo.dto.CartOrderRequest;
+import storeApplication.demo.dto.OrderLineSummary;
+import storeApplication.demo.dto.OrderPage;
+import storeApplication.demo.dto.OrderStatusEvent;
+import storeApplication.demo.dto.OrderStatusSummary;
+import storeApplication.demo.dto.OrderSummary;
 import storeApplication.demo.model.Order;
+import storeApplication.demo.model.OrderStatusView;
+import storeApplication.demo.security.AuthenticatedUser;
+import storeApplication.demo.security.AuthenticatedUserService;
+import storeApplication.demo.security.JwtAuthenticationFilter;
 import storeApplication.demo.service.OrderService;
-import storeApplication.demo.service.AuthService;
-import storeApplication.demo.util.JwtUtil;
+import storeApplication.demo.service.CartOrderService;
+import storeApplication.demo.service.HotSkuService;
+import storeApplication.demo.service.IdempotencyService;
+import storeApplication.demo.service.OrderEventHub;
+import storeApplication.demo.service.OrderListingService;
+import storeApplication.demo.service.OrderPlacementService;
+import storeApplication.demo.service.OrderStatusViewService;
+import storeApplication.demo.service.PaymentSubmissionService;
+import storeApplication.demo.service.ProductCatalogCache;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/orders")
 @RequiredArgsConstructor
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = "X-Next-Cursor")
 public class OrderController {
 
     private final OrderService orderService;
-    private final AuthService authService;
-    private final JwtUtil jwtUtil;
+    private final OrderPlacementService orderPlacementService;
+    private final PaymentSubmissionService paymentSubmissionService;
+    private final AuthenticatedUserService authenticatedUserService;
+    private final ProductCatalogCache productCatalogCache;
+    private final HotSkuService hotSkuService;
+    private final CartOrderService cartOrderService;
+    private final IdempotencyService idempotencyService;
+    private final OrderStatusViewService orderStatusViewService;
+    private final OrderEventHub orderEventHub;
+    private final OrderListingService orderListingService;
+
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     @PostMapping
-    public ResponseEntity<Order> createOrder(@RequestBody CreateOrderRequest request, 
-                                           @RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<OrderSummary> createOrder(@RequestBody CreateOrderRequest request, 
+                                           @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                           AuthenticatedUser user) {
+        // Sold-out hot SKUs are rejected before any database work
+        boolean soldOut = hotSkuService.isSoldOut(request.getItemId());
+        if (soldOut && idempotencyKey == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        try {
+            String scope = "orders:create:" + user.getUserId();
+
+            // A retry of an order that already went through still gets its original response
+            if (soldOut && !idempotencyService.hasCachedResponse(idempotencyKey, scope)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+            return idempotencyService.execute(idempotencyKey, scope, request, OrderSummary.class, () -> {
+                if (hotSkuService.isHot(request.getItemId())) {
+                    Optional<Order> claimed = hotSkuService.createOrder(
+                            user.getUserId(),
+                            request.getItemId(),
+                            request.getQuantity()
+                    );
+                    claimed.ifPresent(orderStatusViewService::update);
+                    return claimed.map(order -> ResponseEntity.ok(OrderSummary.from(order)))
+                            .orElse(ResponseEntity.status(HttpStatus.CONFLICT).build());
+                }
+
+                Order order = orderPlacementService.createOrder(
+                        user.getUserId(),
+                        request.getItemId(),
+                        request.getQuantity()
+                );
+                orderStatusViewService.update(order);
+                return ResponseEntity.ok(OrderSummary.from(order));
+            });
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Create one order for a whole cart: one stock reservation, one payment and one delivery request
+     */
+    @PostMapping("/cart")
+    public ResponseEntity<OrderSummary> createCartOrder(@RequestBody CartOrderRequest request,
+                                                        AuthenticatedUser user) {
         try {
-            // Extract token from Authorization header
-            String token = authHeader.substring(7); // Remove "Bearer " prefix
-            String username = jwtUtil.getUsernameFromToken(token);
-            
-            // Get user ID from username
-            Integer userId = authService.getUserIdByUsername(username);
-            
-            Order order = orderService.createOrder(
-                    userId,
-                    request.getItemId(),
-                    request.getQuantity()
-            );
-            return ResponseEntity.ok(order);
+            Order order = cartOrderService.createCartOrder(user.getUserId(), request.getLines());
+            orderStatusViewService.update(order);
+            return ResponseEntity.ok(OrderSummary.from(order, cartOrderService.getLines(order.getId())));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * The items of one of the caller's orders, one line per item; someone else's order is answered like a missing one
+     */
+    @GetMapping("/{id}/lines")
+    public ResponseEntity<List<OrderLineSummary>> getOrderLines(@PathVariable Integer id, AuthenticatedUser user) {
+        try {
+            if (ownView(id, user).isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(OrderSummary.summarize(cartOrderService.getLines(id)));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @PostMapping("/{id}/pay")
-    public ResponseEntity<Order> processPayment(@PathVariable Integer id) {
+    public ResponseEntity<OrderSummary> processPayment(@PathVariable Integer id,
+                                                @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         try {
-            Order order = orderService.processPayment(id);
-            return ResponseEntity.ok(order);
+            return idempotencyService.execute(idempotencyKey, "orders:pay:" + id, null, OrderSummary.class,
+                    () -> {
+                        Order order = paymentSubmissionService.processPayment(id);
+                        orderEventHub.publish(orderStatusViewService.update(order));
+                        return ResponseEntity.ok(OrderSummary.from(order));
+                    });
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @PostMapping("/{id}/cancel")
-    public ResponseEntity<Order> cancelOrder(@PathVariable Integer id) {
+    public ResponseEntity<OrderSummary> cancelOrder(@PathVariable Integer id) {
         try {
+            if (cartOrderService.isCartOrder(id)) {
+                Order order = cartOrderService.cancelCartOrder(id);
+                orderEventHub.publish(orderStatusViewService.update(order));
+                return ResponseEntity.ok(OrderSummary.from(order, cartOrderService.getLines(id)));
+            }
             Order order = orderService.cancelOrder(id);
-            return ResponseEntity.ok(order);
+            productCatalogCache.refreshItemStock(order.getItemId());
+            orderEventHub.publish(orderStatusViewService.update(order));
+            return ResponseEntity.ok(OrderSummary.from(order));
         } catch (Exception e) {
             e.printStackTrace();
             System.err.println("Cancel order error: " + e.getMessage());
@@ -63,26 +158,122 @@ public class OrderController {
         }
     }
 
+    /**
+     * The caller's orders, newest first, one keyset page at a time.
+     * Pass the X-Next-Cursor header of a page as {@code cursor} to get the next one; it is absent on the last page.
+     */
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders() {
+    public ResponseEntity<List<OrderSummary>> getAllOrders(AuthenticatedUser user,
+                                                           @RequestParam(value = "cursor", required = false) String cursor,
+                                                           @RequestParam(value = "limit", defaultValue = "50") int limit) {
         try {
-            List<Order> orders = orderService.findAll();
-            return ResponseEntity.ok(orders);
+            OrderPage page = orderListingService.findByUser(user.getUserId(), cursor, limit);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.body(page.getOrders());
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    /**
+     * Admin export of every order as newline-delimited JSON, streamed from a database cursor.
+     * SecurityConfig restricts it to the ADMIN role.
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportOrders() {
+        try {
+            StreamingResponseBody body = orderListingService::exportAll;
+            return ResponseEntity.ok(body);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Polled by the frontend while waiting for payment and delivery, so it reads the status view, not the order entity.
+     * Someone else's order is answered like a missing one.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Order> getOrder(@PathVariable Integer id) {
+    public ResponseEntity<OrderStatusSummary> getOrder(@PathVariable Integer id, AuthenticatedUser user) {
+        try {
+            return ownView(id, user)
+                    .map(view -> ResponseEntity.ok(OrderStatusSummary.from(view)))
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Pushes status changes of one of the caller's orders as Server-Sent Events, starting with its current status.
+     * The stream ends once the order is delivered or cancelled. EventSource cannot set headers,
+     * so the token may also be passed as a query parameter.
+     */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<OrderStatusEvent>>> streamOrderEvents(
+            @PathVariable Integer id,
+            @RequestParam(value = "token", required = false) String tokenParam,
+            HttpServletRequest httpRequest) {
+        AuthenticatedUser user;
+        try {
+            user = streamUser(tokenParam, httpRequest);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Flux<OrderStatusEvent> live;
+        try {
+            live = orderEventHub.subscribeToOrder(id);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
         try {
-            Order order = orderService.findById(id);
-            return ResponseEntity.ok(order);
+            // Subscribed before reading the snapshot, so a change in between is not lost.
+            // Someone else's order is answered like a missing one.
+            OrderStatusEvent current = ownView(id, user)
+                    .map(OrderEventHub::toEvent)
+                    .orElseThrow(() -> new RuntimeException("Order not found: " + id));
+            return ResponseEntity.ok(orderEventHub.toServerSentEvents(
+                    Flux.concat(Flux.just(current), live).takeUntil(OrderEventHub::isFinal)));
         } catch (Exception e) {
+            live.subscribe().dispose(); // unregisters the subscriber
             return ResponseEntity.notFound().build();
         }
     }
 
+    /**
+     * Pushes status changes of every order of the calling user. EventSource cannot set headers,
+     * so the token may also be passed as a query parameter.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<OrderStatusEvent>>> streamUserEvents(
+            @RequestParam(value = "token", required = false) String tokenParam,
+            HttpServletRequest httpRequest) {
+        AuthenticatedUser user;
+        try {
+            user = streamUser(tokenParam, httpRequest);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            return ResponseEntity.ok(orderEventHub.toServerSentEvents(orderEventHub.subscribeToUser(user.getUserId())));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    private Optional<OrderStatusView> ownView(Integer orderId, AuthenticatedUser user) {
+        return orderStatusViewService.get(orderId).filter(view -> user.getUserId().equals(view.getUserId()));
+    }
+
+    // The filter's principal when the token came in the Authorization header, otherwise the query parameter
+    private AuthenticatedUser streamUser(String tokenParam, HttpServletRequest httpRequest) {
+        Object principal = httpRequest.getAttribute(JwtAuthenticationFilter.PRINCIPAL_ATTRIBUTE);
+        return principal != null ? (AuthenticatedUser) principal : authenticatedUserService.fromToken(tokenParam);
+    }
+
     // DTO for order creation
     public static class CreateOrderRequest {
         private Integer itemId;
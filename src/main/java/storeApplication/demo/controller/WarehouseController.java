@@ -4,7 +4,9 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import storeApplication.demo.dto.CreateWarehouseRequest;
+import storeApplication.demo.dto.WarehouseResponse;
 import storeApplication.demo.model.Warehouse;
+import storeApplication.demo.repository.WarehouseRepository;
 import storeApplication.demo.service.WarehouseService;
 
 import java.util.List;
@@ -16,11 +18,12 @@ import java.util.List;
 public class WarehouseController {
 
     private final WarehouseService warehouseService;
+    private final WarehouseRepository warehouseRepository;
 
     @GetMapping
-    public ResponseEntity<List<Warehouse>> getAllWarehouses() {
+    public ResponseEntity<List<WarehouseResponse>> getAllWarehouses() {
         try {
-            List<Warehouse> warehouses = warehouseService.getAllWarehouses();
+            List<WarehouseResponse> warehouses = warehouseRepository.findAllResponses();
             return ResponseEntity.ok(warehouses);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -28,10 +31,10 @@ public class WarehouseController {
     }
 
     @PostMapping
-    public ResponseEntity<Warehouse> createWarehouse(@RequestBody CreateWarehouseRequest request) {
+    public ResponseEntity<WarehouseResponse> createWarehouse(@RequestBody CreateWarehouseRequest request) {
         try {
             Warehouse warehouse = warehouseService.createWarehouse(request);
-            return ResponseEntity.ok(warehouse);
+            return ResponseEntity.ok(new WarehouseResponse(warehouse.getId(), warehouse.getName()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
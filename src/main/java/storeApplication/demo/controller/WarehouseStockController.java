@@ -1,12 +1,21 @@
 package storeApplication.demo.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import storeApplication.demo.dto.AddItemToWarehouseRequest;
-import storeApplication.demo.model.WarehouseStock;
+import storeApplication.demo.dto.StockImportReport;
+import storeApplication.demo.dto.WarehouseStockResponse;
+import storeApplication.demo.repository.WarehouseStockRepository;
+import storeApplication.demo.service.HotSkuService;
+import storeApplication.demo.service.ProductCatalogCache;
+import storeApplication.demo.service.WarehouseStockImportService;
+import storeApplication.demo.service.WarehouseStockIndex;
 import storeApplication.demo.service.WarehouseStockService;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/warehouse-stocks")
 @RequiredArgsConstructor
@@ -14,12 +23,47 @@ import storeApplication.demo.service.WarehouseStockService;
 public class WarehouseStockController {
 
     private final WarehouseStockService warehouseStockService;
+    private final ProductCatalogCache productCatalogCache;
+    private final HotSkuService hotSkuService;
+    private final WarehouseStockIndex stockIndex;
+    private final WarehouseStockImportService warehouseStockImportService;
+    private final WarehouseStockRepository warehouseStockRepository;
+
+    @GetMapping
+    public ResponseEntity<List<WarehouseStockResponse>> getAllStock() {
+        try {
+            return ResponseEntity.ok(warehouseStockRepository.findAllResponses());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 
     @PostMapping
-    public ResponseEntity<WarehouseStock> addItemToWarehouse(@RequestBody AddItemToWarehouseRequest request) {
+    public ResponseEntity<WarehouseStockResponse> addItemToWarehouse(@RequestBody AddItemToWarehouseRequest request) {
+        try {
+            warehouseStockService.addItemToWarehouse(request);
+            stockIndex.reload(request.getItemId());
+            hotSkuService.reload(request.getItemId());
+            productCatalogCache.refreshItemStock(request.getItemId());
+            return warehouseStockRepository.findResponse(request.getItemId(), request.getWarehouseId())
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.badRequest().build());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Bulk upsert of absolute stock levels, streamed as CSV (itemId,warehouseId,quantity) or NDJSON.
+     * SecurityConfig restricts it to the ADMIN role. An upload that breaks off is answered 400 with the
+     * report, whose rowsUpserted are already committed.
+     */
+    @PostMapping(value = "/bulk", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<StockImportReport> importStock(HttpServletRequest request) {
         try {
-            WarehouseStock stock = warehouseStockService.addItemToWarehouse(request);
-            return ResponseEntity.ok(stock);
+            boolean ndjson = request.getContentType().startsWith("application/x-ndjson");
+            StockImportReport report = warehouseStockImportService.importStock(request.getInputStream(), ndjson);
+            return report.isComplete() ? ResponseEntity.ok(report) : ResponseEntity.badRequest().body(report);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
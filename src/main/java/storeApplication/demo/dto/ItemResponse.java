@@ -0,0 +1,16 @@
+package storeApplication.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemResponse {
+    private Integer id;
+    private String name;
+    private BigDecimal price;
+}
@@ -0,0 +1,19 @@
+package storeApplication.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One item of a cart order, with its quantity summed over the warehouses it ships from.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLineSummary {
+    private Integer itemId;
+    private Integer quantity;
+    private BigDecimal price; // unit price
+}
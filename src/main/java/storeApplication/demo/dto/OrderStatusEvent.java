@@ -1,4 +1,4 @@
-package com.example.deliveryco.dto;
+package storeApplication.demo.dto;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -7,10 +7,11 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class DeliveryStatusMessage {
+public class OrderStatusEvent {
     private Integer orderId;
+    private Integer userId;
     private String status;
-    private String message;
-    private Long timestamp;
+    private String deliveryStatus;
     private String trackingId;
+    private Long timestamp;
 }
@@ -0,0 +1,36 @@
+package storeApplication.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import storeApplication.demo.model.OrderStatusView;
+import storeApplication.demo.model.enums.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * What GET /api/orders/{id} returns: the order JSON the frontend polls, plus the latest delivery status.
+ * Copied from the status view, so the entity and its bookkeeping columns stay out of the API.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusSummary {
+    private Integer id;
+    private Integer userId;
+    private Integer itemId;
+    private Integer quantity;
+    private BigDecimal price;
+    private OrderStatus status;
+    private LocalDateTime createdAt;
+    private Boolean deliveryRequestSent;
+    private String deliveryStatus;
+    private String trackingId;
+
+    public static OrderStatusSummary from(OrderStatusView view) {
+        return new OrderStatusSummary(view.getId(), view.getUserId(), view.getItemId(), view.getQuantity(),
+                view.getPrice(), view.getStatus(), view.getCreatedAt(), view.getDeliveryRequestSent(),
+                view.getDeliveryStatus(), view.getTrackingId());
+    }
+}
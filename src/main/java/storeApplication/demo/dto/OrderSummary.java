@@ -0,0 +1,67 @@
+package storeApplication.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import storeApplication.demo.model.Order;
+import storeApplication.demo.model.OrderLine;
+import storeApplication.demo.model.enums.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The order columns the API returns, read without loading the user and item relations.
+ * A single-item order has itemId, quantity and its unit price. A cart order has no itemId or
+ * quantity, its price is the cart total and its items are in lines.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummary {
+    private Integer id;
+    private Integer userId;
+    private Integer itemId;
+    private Integer quantity;
+    private BigDecimal price;
+    private OrderStatus status;
+    private LocalDateTime createdAt;
+    private Boolean deliveryRequestSent;
+    private List<OrderLineSummary> lines; // null for single-item orders
+
+    // Used by the JPQL projections in OrderRepository and by the export
+    public OrderSummary(Integer id, Integer userId, Integer itemId, Integer quantity, BigDecimal price,
+                        OrderStatus status, LocalDateTime createdAt, Boolean deliveryRequestSent) {
+        this(id, userId, itemId, quantity, price, status, createdAt, deliveryRequestSent, null);
+    }
+
+    public static OrderSummary from(Order order) {
+        return new OrderSummary(order.getId(), order.getUserId(), order.getItemId(), order.getQuantity(),
+                order.getPrice(), order.getStatus(), order.getCreatedAt(), order.getDeliveryRequestSent());
+    }
+
+    public static OrderSummary from(Order order, List<OrderLine> lines) {
+        OrderSummary summary = from(order);
+        summary.setLines(summarize(lines));
+        return summary;
+    }
+
+    /**
+     * Merges the per-warehouse order lines of one order into one line per item.
+     */
+    public static List<OrderLineSummary> summarize(List<OrderLine> lines) {
+        Map<Integer, OrderLineSummary> byItem = new LinkedHashMap<>();
+        for (OrderLine line : lines) {
+            byItem.merge(line.getItemId(), new OrderLineSummary(line.getItemId(), line.getQuantity(), line.getPrice()),
+                    (merged, more) -> {
+                        merged.setQuantity(merged.getQuantity() + more.getQuantity());
+                        return merged;
+                    });
+        }
+        return new ArrayList<>(byItem.values());
+    }
+}
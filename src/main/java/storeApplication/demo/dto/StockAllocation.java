@@ -0,0 +1,14 @@
+package storeApplication.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAllocation {
+    private Integer itemId;
+    private Integer warehouseId;
+    private Integer quantity;
+}
@@ -0,0 +1,24 @@
+package storeApplication.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockImportReport {
+    private long rowsRead;
+    private long rowsUpserted;
+    private long rowsFailed;
+    private long elapsedMs;
+    private double rowsPerSecond;
+    private List<String> errors; // capped, see warehouse-stock.import.max-reported-errors
+    private String abortedReason; // null when the whole file was read
+
+    public boolean isComplete() {
+        return abortedReason == null;
+    }
+}
@@ -7,15 +7,10 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class DeliveryRequestMessage {
-    private Integer orderId;
-    private String deliveryAddress;
-    private String customerEmail;
-    private String customerName;
+public class WarehouseStockResponse {
+    private Integer itemId;
     private String itemName;
+    private Integer warehouseId;
+    private String warehouseName;
     private Integer quantity;
-    private Long timestamp;
 }
-
-
-
@@ -1,16 +1,26 @@
 package storeApplication.demo.listener;
 
+import com.example.contracts.DeliveryStatusMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
-import storeApplication.demo.dto.DeliveryStatusMessage;
+import org.springframework.transaction.support.TransactionTemplate;
+import storeApplication.demo.repository.DeliverySequenceRepository;
+import storeApplication.demo.service.OrderEventHub;
+import storeApplication.demo.service.OrderLanes;
 import storeApplication.demo.service.OrderService;
+import storeApplication.demo.service.OrderStatusViewService;
+import storeApplication.demo.service.ProductCatalogCache;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
 
 @Component
 @RequiredArgsConstructor
@@ -18,68 +28,110 @@ import java.time.format.DateTimeFormatter;
 public class DeliveryStatusListener {
 
     private final OrderService orderService;
+    private final ProductCatalogCache productCatalogCache;
+    private final OrderStatusViewService orderStatusViewService;
+    private final OrderEventHub orderEventHub;
+    private final OrderLanes orderLanes;
+    private final DeliverySequenceRepository deliverySequenceRepository;
+    private final TransactionTemplate transactionTemplate;
     private static final DateTimeFormatter TIMESTAMP_FORMATTER = 
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
 
-    @RabbitListener(queues = "delivery.status.queue", containerFactory = "rabbitListenerContainerFactory")
-    public void handleDeliveryStatus(DeliveryStatusMessage message) {
+    @RabbitListener(queues = "delivery.status.queue", containerFactory = "orderLaneContainerFactory")
+    public void handleDeliveryStatuses(List<Message> messages) {
+        orderLanes.process(messages, DeliveryStatusMessage.class, DeliveryStatusMessage::orderId,
+                this::processBatch);
+    }
+
+    // One transaction for a lane's share of the batch; if any message in it fails, they are retried one by one
+    // and those that still fail go to the retry queue
+    private void processBatch(List<DeliveryStatusMessage> messages,
+                              BiConsumer<DeliveryStatusMessage, Exception> failed) {
+        List<DeliveryStatusMessage> applied;
+        try {
+            applied = transactionTemplate.execute(status -> messages.stream().filter(this::apply).toList());
+        } catch (Exception e) {
+            log.warn("Batch of {} delivery statuses failed ({}), applying them one at a time",
+                    messages.size(), e.getMessage());
+            applied = new ArrayList<>();
+            for (DeliveryStatusMessage message : messages) {
+                try {
+                    if (Boolean.TRUE.equals(transactionTemplate.execute(status -> apply(message)))) {
+                        applied.add(message);
+                    }
+                } catch (Exception single) {
+                    log.error("Error processing delivery status for order {}: {}",
+                            message.orderId(), single.getMessage(), single);
+                    failed.accept(message, single);
+                }
+            }
+        }
+        for (DeliveryStatusMessage message : applied) {
+            orderStatusViewService.recordDelivery(message).ifPresent(orderEventHub::publish);
+        }
+    }
+
+    private boolean apply(DeliveryStatusMessage message) {
         String currentTime = LocalDateTime.now().format(TIMESTAMP_FORMATTER);
-        String messageTime = message.getTimestamp() != null ?
-                LocalDateTime.ofInstant(Instant.ofEpochMilli(message.getTimestamp()), 
+        String messageTime = message.timestamp() != null ?
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(message.timestamp()), 
                         ZoneId.systemDefault()).format(TIMESTAMP_FORMATTER) : "N/A";
         
         log.info("[{}] ========== Delivery Status Update ==========", currentTime);
-        log.info("[{}] Order ID: {}", currentTime, message.getOrderId());
-        log.info("[{}] Status: {}", currentTime, message.getStatus().toUpperCase());
-        log.info("[{}] Tracking ID: {}", currentTime, message.getTrackingId());
-        log.info("[{}] Message: {}", currentTime, message.getMessage());
+        log.info("[{}] Order ID: {}", currentTime, message.orderId());
+        log.info("[{}] Status: {}", currentTime, message.status().toUpperCase());
+        log.info("[{}] Tracking ID: {}", currentTime, message.trackingId());
+        log.info("[{}] Message: {}", currentTime, message.message());
         log.info("[{}] Message Timestamp: {}", currentTime, messageTime);
-        
-        try {
-            switch (message.getStatus().toUpperCase()) {
-                case "DELIVERED":
-                    log.info("[{}] Package delivered successfully for order: {}", 
-                            currentTime, message.getOrderId());
-                    orderService.handleDeliverySuccess(message.getOrderId());
-                    break;
-                    
-                case "LOST":
-                    log.warn("[{}] Package LOST for order: {}", 
-                            currentTime, message.getOrderId());
-                    log.warn("[{}] Triggering automatic order cancellation and refund...", currentTime);
-                    orderService.handleDeliveryLost(message.getOrderId());
-                    break;
-                    
-                case "RECEIVED":
-                    log.info("[{}] Package received at warehouse for order: {}", 
-                            currentTime, message.getOrderId());
-                    break;
-                    
-                case "PICKED_UP":
-                    log.info("[{}] Package picked up by driver for order: {}", 
-                            currentTime, message.getOrderId());
-                    break;
-                    
-                case "IN_TRANSIT":
-                    log.info("[{}] Package in transit for order: {}", 
-                            currentTime, message.getOrderId());
-                    break;
-                    
-                case "CANCELLED":
-                    log.info("[{}] Delivery cancelled for order: {}", 
-                            currentTime, message.getOrderId());
-                    break;
-                    
-                default:
-                    log.info("[{}] Delivery status update: {} for order: {}", 
-                            currentTime, message.getStatus(), message.getOrderId());
-            }
-            
-            log.info("[{}] =================================================", currentTime);
-        } catch (Exception e) {
-            log.error("[{}] Error processing delivery status for order {}: {}", 
-                    currentTime, message.getOrderId(), e.getMessage(), e);
+
+        // Messages from senders without sequence numbers are applied as they come
+        if (message.sequence() != null
+                && deliverySequenceRepository.advance(message.orderId(), message.sequence()) == 0) {
+            log.info("[{}] Dropped late or duplicate status {} (sequence {}) for order {}",
+                    currentTime, message.status(), message.sequence(), message.orderId());
+            return false;
+        }
+        switch (message.status().toUpperCase()) {
+            case "DELIVERED":
+                log.info("[{}] Package delivered successfully for order: {}", 
+                        currentTime, message.orderId());
+                orderService.handleDeliverySuccess(message.orderId());
+                break;
+                
+            case "LOST":
+                log.warn("[{}] Package LOST for order: {}", 
+                        currentTime, message.orderId());
+                log.warn("[{}] Triggering automatic order cancellation and refund...", currentTime);
+                orderService.handleDeliveryLost(message.orderId());
+                productCatalogCache.invalidate();
+                break;
+                
+            case "RECEIVED":
+                log.info("[{}] Package received at warehouse for order: {}", 
+                        currentTime, message.orderId());
+                break;
+                
+            case "PICKED_UP":
+                log.info("[{}] Package picked up by driver for order: {}", 
+                        currentTime, message.orderId());
+                break;
+                
+            case "IN_TRANSIT":
+                log.info("[{}] Package in transit for order: {}", 
+                        currentTime, message.orderId());
+                break;
+                
+            case "CANCELLED":
+                log.info("[{}] Delivery cancelled for order: {}", 
+                        currentTime, message.orderId());
+                break;
+                
+            default:
+                log.info("[{}] Delivery status update: {} for order: {}", 
+                        currentTime, message.status(), message.orderId());
         }
+        log.info("[{}] =================================================", currentTime);
+        return true;
     }
 }
 
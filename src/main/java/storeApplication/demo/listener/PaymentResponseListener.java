@@ -1,11 +1,19 @@
 package storeApplication.demo.listener;
 
+import com.example.contracts.PaymentResponseMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
-import storeApplication.demo.dto.PaymentResponseMessage;
+import org.springframework.transaction.support.TransactionTemplate;
+import storeApplication.demo.service.OrderEventHub;
+import storeApplication.demo.service.OrderLanes;
 import storeApplication.demo.service.OrderService;
+import storeApplication.demo.service.OrderStatusViewService;
+
+import java.util.List;
+import java.util.function.BiConsumer;
 
 @Component
 @RequiredArgsConstructor
@@ -13,23 +21,50 @@ import storeApplication.demo.service.OrderService;
 public class PaymentResponseListener {
 
     private final OrderService orderService;
+    private final OrderStatusViewService orderStatusViewService;
+    private final OrderEventHub orderEventHub;
+    private final OrderLanes orderLanes;
+    private final TransactionTemplate transactionTemplate;
+
+    @RabbitListener(queues = "payment.response.queue", containerFactory = "orderLaneContainerFactory")
+    public void handlePaymentResponses(List<Message> messages) {
+        orderLanes.process(messages, PaymentResponseMessage.class, PaymentResponseMessage::orderId,
+                this::processBatch);
+    }
 
-    @RabbitListener(queues = "payment.response.queue", containerFactory = "rabbitListenerContainerFactory")
-    public void handlePaymentResponse(PaymentResponseMessage message) {
-        log.info("Received payment response for order {}: {}", message.getOrderId(), message.getStatus());
-        
+    // One transaction for a lane's share of the batch; if any message in it fails, they are retried one by one
+    // and those that still fail go to the retry queue
+    private void processBatch(List<PaymentResponseMessage> messages,
+                              BiConsumer<PaymentResponseMessage, Exception> failed) {
         try {
-            if ("SUCCESS".equals(message.getStatus())) {
-                orderService.handlePaymentSuccess(message.getOrderId());
-            } else if ("FAILED".equals(message.getStatus())) {
-                orderService.handlePaymentFailure(message.getOrderId());
-            } else {
-                log.warn("Unknown payment status: {}", message.getStatus());
-            }
+            transactionTemplate.executeWithoutResult(status -> messages.forEach(this::apply));
         } catch (Exception e) {
-            log.error("Error processing payment response for order {}: {}", message.getOrderId(), e.getMessage());
+            log.warn("Batch of {} payment responses failed ({}), applying them one at a time",
+                    messages.size(), e.getMessage());
+            for (PaymentResponseMessage message : messages) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> apply(message));
+                } catch (Exception single) {
+                    log.error("Error processing payment response for order {}: {}",
+                            message.orderId(), single.getMessage());
+                    failed.accept(message, single);
+                }
+            }
+        }
+        for (PaymentResponseMessage message : messages) {
+            orderStatusViewService.refresh(message.orderId()).ifPresent(orderEventHub::publish);
         }
     }
-}
 
+    private void apply(PaymentResponseMessage message) {
+        log.info("Received payment response for order {}: {}", message.orderId(), message.status());
 
+        if ("SUCCESS".equals(message.status())) {
+            orderService.handlePaymentSuccess(message.orderId());
+        } else if ("FAILED".equals(message.status())) {
+            orderService.handlePaymentFailure(message.orderId());
+        } else {
+            log.warn("Unknown payment status: {}", message.status());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package storeApplication.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * Highest delivery status sequence applied to an order; updates at or below it are late or duplicates.
+ */
+@Entity
+@Table(name = "delivery_sequences")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliverySequence {
+    @Id
+    @Column(name = "order_id")
+    private Integer orderId;
+
+    @Column(name = "last_sequence", nullable = false)
+    private Long lastSequence;
+}
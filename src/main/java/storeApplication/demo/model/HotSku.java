@@ -0,0 +1,24 @@
+package storeApplication.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * An item in flash-sale (hot SKU) mode, so the mode survives a restart of the store.
+ */
+@Entity
+@Table(name = "hot_skus")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotSku {
+    @Id
+    @Column(name = "item_id")
+    private Integer itemId;
+
+    @Column(name = "enabled_at", nullable = false)
+    private LocalDateTime enabledAt;
+}
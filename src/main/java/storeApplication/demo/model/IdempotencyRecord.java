@@ -0,0 +1,48 @@
+package storeApplication.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * The first request seen for an Idempotency-Key and, once it has finished, the response it produced.
+ * The unique constraint is what stops two instances from both running the same request; the request hash
+ * is what tells a retry apart from a different request that reused the key.
+ */
+@Entity
+@Table(name = "idempotency_keys", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_idempotency_keys_scope_key", columnNames = {"scope", "idempotency_key"})
+}, indexes = {
+        @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "scope", length = 100, nullable = false)
+    private String scope;
+
+    @Column(name = "idempotency_key", length = 255, nullable = false)
+    private String idempotencyKey;
+
+    @Column(name = "request_hash", length = 64)
+    private String requestHash; // SHA-256 of the request body as JSON
+
+    @Column(name = "status", length = 20)
+    private String status; // IN_PROGRESS / COMPLETED
+
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,39 @@
+package storeApplication.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.math.BigDecimal;
+
+/**
+ * One line of a multi-item (cart) order, already split per shipping warehouse,
+ * so the line doubles as the stock allocation of that item.
+ */
+@Entity
+@Table(name = "order_lines", indexes = {
+        @Index(name = "idx_order_lines_order_id", columnList = "order_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLine {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "order_id")
+    private Integer orderId;
+
+    @Column(name = "item_id")
+    private Integer itemId;
+
+    @Column(name = "warehouse_id")
+    private Integer warehouseId;
+
+    @Column(name = "quantity")
+    private Integer quantity;
+
+    @Column(name = "price", precision = 10, scale = 2)
+    private BigDecimal price;
+}
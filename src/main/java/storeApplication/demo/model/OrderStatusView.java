@@ -0,0 +1,70 @@
+package storeApplication.demo.model;
+
+import storeApplication.demo.model.enums.OrderStatus;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Denormalized, join-free copy of an order's status for GET /api/orders/{id}, kept up to date from
+ * the payment and delivery events. Field names match the order JSON the frontend already polls.
+ */
+@Entity
+@Table(name = "order_status_view")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusView {
+    @Id
+    private Integer id;
+
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Column(name = "item_id")
+    private Integer itemId;
+
+    @Column(name = "quantity")
+    private Integer quantity;
+
+    @Column(name = "price", precision = 10, scale = 2)
+    private BigDecimal price;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private OrderStatus status;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "delivery_request_sent")
+    private Boolean deliveryRequestSent;
+
+    @Column(name = "delivery_status", length = 50)
+    private String deliveryStatus;
+
+    @Column(name = "tracking_id", length = 255)
+    private String trackingId;
+
+    @Column(name = "delivery_updated_at")
+    private Long deliveryUpdatedAt; // timestamp of the delivery event the status came from
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Used by the JPQL projection in OrderRepository
+    public OrderStatusView(Integer id, Integer userId, Integer itemId, Integer quantity, BigDecimal price,
+                           OrderStatus status, LocalDateTime createdAt, Boolean deliveryRequestSent) {
+        this.id = id;
+        this.userId = userId;
+        this.itemId = itemId;
+        this.quantity = quantity;
+        this.price = price;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.deliveryRequestSent = deliveryRequestSent;
+    }
+}
@@ -0,0 +1,42 @@
+package storeApplication.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * A broker message written in the same transaction as the change it announces.
+ * {@code sentAt} stays null until the relay has a publisher confirm for it.
+ */
+@Entity
+@Table(name = "outbox_messages", indexes = {
+        @Index(name = "idx_outbox_messages_sent_at_id", columnList = "sent_at, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "exchange", length = 100, nullable = false)
+    private String exchange;
+
+    @Column(name = "routing_key", length = 100, nullable = false)
+    private String routingKey;
+
+    @Column(name = "type_id", length = 255)
+    private String typeId; // __TypeId__ header, as RabbitTemplate would have set it
+
+    @Column(name = "payload", columnDefinition = "TEXT", nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,29 @@
+package storeApplication.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * A role granted to a user, e.g. ADMIN for the order export and the dead-letter endpoints.
+ * Roles are put into the JWT at login, so requests never read this table.
+ */
+@Entity
+@Table(name = "user_roles", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_user_roles_user_role", columnNames = {"user_id", "role"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserRole {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    @Column(name = "role", nullable = false, length = 50)
+    private String role;
+}
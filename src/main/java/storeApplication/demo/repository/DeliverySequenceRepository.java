@@ -0,0 +1,18 @@
+package storeApplication.demo.repository;
+
+import storeApplication.demo.model.DeliverySequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DeliverySequenceRepository extends JpaRepository<DeliverySequence, Integer> {
+    // 1 when the sequence is newer than the last applied one and was recorded, 0 for a late or duplicate update
+    @Modifying
+    @Query(value = "INSERT INTO delivery_sequences (order_id, last_sequence) VALUES (:orderId, :sequence) " +
+            "ON CONFLICT (order_id) DO UPDATE SET last_sequence = EXCLUDED.last_sequence " +
+            "WHERE delivery_sequences.last_sequence < EXCLUDED.last_sequence", nativeQuery = true)
+    int advance(@Param("orderId") Integer orderId, @Param("sequence") Long sequence);
+}
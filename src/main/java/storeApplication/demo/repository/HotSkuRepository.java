@@ -0,0 +1,9 @@
+package storeApplication.demo.repository;
+
+import storeApplication.demo.model.HotSku;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface HotSkuRepository extends JpaRepository<HotSku, Integer> {
+}
@@ -1,9 +1,16 @@
 package storeApplication.demo.repository;
 
 import storeApplication.demo.model.Item;
+import storeApplication.demo.dto.ItemResponse;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Integer> {
+
+    @Query("SELECT new storeApplication.demo.dto.ItemResponse(i.id, i.name, i.price) FROM Item i ORDER BY i.id")
+    List<ItemResponse> findAllResponses();
 }
@@ -1,5 +1,6 @@
 package storeApplication.demo.repository;
 
+import storeApplication.demo.dto.StockAllocation;
 import storeApplication.demo.model.OrderAllocation;
 import storeApplication.demo.model.OrderAllocationId;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -8,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -17,6 +19,14 @@ public interface OrderAllocationRepository extends JpaRepository<OrderAllocation
     @Modifying
     @Query("DELETE FROM OrderAllocation oa WHERE oa.id.orderId = :orderId")
     void deleteByOrderId(@Param("orderId") Integer orderId);
+
+    @Query("SELECT new storeApplication.demo.dto.StockAllocation(o.itemId, oa.id.warehouseId, oa.quantity) " +
+           "FROM OrderAllocation oa, Order o WHERE oa.id.orderId = o.id AND o.id IN :orderIds")
+    List<StockAllocation> findStockByOrderIds(@Param("orderIds") Collection<Integer> orderIds);
+
+    @Modifying
+    @Query("DELETE FROM OrderAllocation oa WHERE oa.id.orderId IN :orderIds")
+    int deleteByOrderIds(@Param("orderIds") Collection<Integer> orderIds);
 }
 
 
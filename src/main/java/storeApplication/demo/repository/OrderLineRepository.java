@@ -0,0 +1,22 @@
+package storeApplication.demo.repository;
+
+import storeApplication.demo.dto.StockAllocation;
+import storeApplication.demo.model.OrderLine;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderLineRepository extends JpaRepository<OrderLine, Integer> {
+    List<OrderLine> findByOrderId(Integer orderId);
+    List<OrderLine> findByOrderIdIn(Collection<Integer> orderIds);
+    boolean existsByOrderId(Integer orderId);
+
+    @Query("SELECT new storeApplication.demo.dto.StockAllocation(ol.itemId, ol.warehouseId, ol.quantity) " +
+           "FROM OrderLine ol WHERE ol.orderId IN :orderIds")
+    List<StockAllocation> findStockByOrderIds(@Param("orderIds") Collection<Integer> orderIds);
+}
@@ -1,11 +1,81 @@
 package storeApplication.demo.repository;
 
+import storeApplication.demo.dto.OrderSummary;
 import storeApplication.demo.model.Order;
+import storeApplication.demo.model.OrderStatusView;
+import storeApplication.demo.model.enums.OrderStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Integer> {
-}
 
+    // Orders whose stock was claimed in memory (hot SKU mode) but never written to order_allocation.
+    // Cart orders keep their allocations in order_lines instead and are excluded.
+    @Query("SELECT o FROM Order o WHERE o.status = :status " +
+           "AND NOT EXISTS (SELECT oa FROM OrderAllocation oa WHERE oa.id.orderId = o.id) " +
+           "AND NOT EXISTS (SELECT ol FROM OrderLine ol WHERE ol.orderId = o.id)")
+    List<Order> findWithoutAllocations(@Param("status") OrderStatus status);
+
+    // Served by idx_orders_status_created_at, so expiry never scans the whole table.
+    // Orders with a payment request the bank has not answered yet are not expired, unless the request
+    // went out before paymentCutoff and the answer is taken to be lost.
+    @Query("SELECT o.id FROM Order o WHERE o.status = :status AND o.createdAt < :cutoff " +
+           "AND NOT EXISTS (SELECT p FROM Payment p WHERE p.orderId = o.id AND p.completedAt IS NULL " +
+           "AND p.requestedAt >= :paymentCutoff) " +
+           "ORDER BY o.createdAt")
+    List<Integer> findIdsCreatedBefore(@Param("status") OrderStatus status,
+                                       @Param("cutoff") LocalDateTime cutoff,
+                                       @Param("paymentCutoff") LocalDateTime paymentCutoff,
+                                       Pageable pageable);
+
+    @Query("SELECT MIN(o.createdAt) FROM Order o WHERE o.status = :status AND o.createdAt < :cutoff " +
+           "AND NOT EXISTS (SELECT p FROM Payment p WHERE p.orderId = o.id AND p.completedAt IS NULL " +
+           "AND p.requestedAt >= :paymentCutoff)")
+    Optional<LocalDateTime> findOldestCreatedBefore(@Param("status") OrderStatus status,
+                                                    @Param("cutoff") LocalDateTime cutoff,
+                                                    @Param("paymentCutoff") LocalDateTime paymentCutoff);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :to WHERE o.id = :id AND o.status = :from")
+    int transitionStatus(@Param("id") Integer id, @Param("from") OrderStatus from, @Param("to") OrderStatus to);
 
+    // Same as transitionStatus, unless a payment request went out since the candidate page was read
+    // (one sent before paymentCutoff is taken to be lost, as in findIdsCreatedBefore)
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :to WHERE o.id = :id AND o.status = :from " +
+           "AND NOT EXISTS (SELECT p FROM Payment p WHERE p.orderId = o.id AND p.completedAt IS NULL " +
+           "AND p.requestedAt >= :paymentCutoff)")
+    int transitionStatusUnlessPaying(@Param("id") Integer id,
+                                     @Param("from") OrderStatus from,
+                                     @Param("to") OrderStatus to,
+                                     @Param("paymentCutoff") LocalDateTime paymentCutoff);
+
+    // Scalar columns of the order row only, so the user and item relations are never joined
+    @Query("SELECT new storeApplication.demo.model.OrderStatusView(o.id, o.userId, o.itemId, o.quantity, o.price, " +
+           "o.status, o.createdAt, o.deliveryRequestSent) FROM Order o WHERE o.id = :id")
+    Optional<OrderStatusView> findStatusView(@Param("id") Integer id);
+
+    // Keyset pages of one user's orders, newest first, served by idx_orders_user_created_at_id
+    @Query("SELECT new storeApplication.demo.dto.OrderSummary(o.id, o.userId, o.itemId, o.quantity, o.price, " +
+           "o.status, o.createdAt, o.deliveryRequestSent) FROM Order o WHERE o.userId = :userId " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findFirstPageByUser(@Param("userId") Integer userId, Pageable pageable);
+
+    @Query("SELECT new storeApplication.demo.dto.OrderSummary(o.id, o.userId, o.itemId, o.quantity, o.price, " +
+           "o.status, o.createdAt, o.deliveryRequestSent) FROM Order o WHERE o.userId = :userId " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findPageByUserAfter(@Param("userId") Integer userId,
+                                           @Param("createdAt") LocalDateTime createdAt,
+                                           @Param("id") Integer id,
+                                           Pageable pageable);
+}
@@ -0,0 +1,9 @@
+package storeApplication.demo.repository;
+
+import storeApplication.demo.model.OrderStatusView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OrderStatusViewRepository extends JpaRepository<OrderStatusView, Integer> {
+}
@@ -9,6 +9,8 @@ import java.util.Optional;
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Integer> {
     Optional<Payment> findByOrderId(Integer orderId);
+
+    boolean existsByOrderIdAndCompletedAtIsNull(Integer orderId);
 }
 
 
@@ -0,0 +1,15 @@
+package storeApplication.demo.repository;
+
+import storeApplication.demo.model.UserRole;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UserRoleRepository extends JpaRepository<UserRole, Integer> {
+    @Query("SELECT r.role FROM UserRole r WHERE r.userId = :userId")
+    List<String> findRolesByUserId(@Param("userId") Integer userId);
+}
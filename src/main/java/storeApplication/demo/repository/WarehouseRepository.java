@@ -1,9 +1,16 @@
 package storeApplication.demo.repository;
 
 import storeApplication.demo.model.Warehouse;
+import storeApplication.demo.dto.WarehouseResponse;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface WarehouseRepository extends JpaRepository<Warehouse, Integer> {
+
+    @Query("SELECT new storeApplication.demo.dto.WarehouseResponse(w.id, w.name) FROM Warehouse w ORDER BY w.id")
+    List<WarehouseResponse> findAllResponses();
 }
@@ -3,7 +3,13 @@ package storeApplication.demo.repository;
 import storeApplication.demo.model.WarehouseStock;
 import storeApplication.demo.model.WarehouseStockId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import storeApplication.demo.dto.StockAllocation;
+import storeApplication.demo.dto.WarehouseStockResponse;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,4 +18,47 @@ import java.util.Optional;
 public interface WarehouseStockRepository extends JpaRepository<WarehouseStock, WarehouseStockId> {
     List<WarehouseStock> findByItemIdOrderByQuantityDesc(Integer itemId);
     Optional<WarehouseStock> findByItemIdAndWarehouseId(Integer itemId, Integer warehouseId);
+
+    @Query("SELECT COALESCE(SUM(ws.quantity), 0) FROM WarehouseStock ws WHERE ws.id.itemId = :itemId")
+    Long sumQuantityByItemId(@Param("itemId") Integer itemId);
+
+    @Query("SELECT new storeApplication.demo.dto.StockAllocation(ws.id.itemId, ws.id.warehouseId, ws.quantity) " +
+           "FROM WarehouseStock ws WHERE ws.id.itemId = :itemId AND ws.quantity > 0 ORDER BY ws.quantity DESC")
+    List<StockAllocation> findAvailableByItemId(@Param("itemId") Integer itemId);
+
+    @Query("SELECT new storeApplication.demo.dto.StockAllocation(ws.id.itemId, ws.id.warehouseId, ws.quantity) " +
+           "FROM WarehouseStock ws WHERE ws.quantity > 0")
+    List<StockAllocation> findAllAvailable();
+
+    @Query("SELECT ws.quantity FROM WarehouseStock ws WHERE ws.id.itemId = :itemId AND ws.id.warehouseId = :warehouseId")
+    Optional<Integer> findQuantity(@Param("itemId") Integer itemId, @Param("warehouseId") Integer warehouseId);
+
+    // Conditional decrement: only succeeds while enough stock is left, so concurrent buyers can never oversell
+    @Transactional
+    @Modifying
+    @Query("UPDATE WarehouseStock ws SET ws.quantity = ws.quantity - :quantity " +
+           "WHERE ws.id.itemId = :itemId AND ws.id.warehouseId = :warehouseId AND ws.quantity >= :quantity")
+    int decrementIfAvailable(@Param("itemId") Integer itemId,
+                             @Param("warehouseId") Integer warehouseId,
+                             @Param("quantity") Integer quantity);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE WarehouseStock ws SET ws.quantity = ws.quantity + :quantity " +
+           "WHERE ws.id.itemId = :itemId AND ws.id.warehouseId = :warehouseId")
+    int increment(@Param("itemId") Integer itemId,
+                  @Param("warehouseId") Integer warehouseId,
+                  @Param("quantity") Integer quantity);
+
+    // Item and warehouse names come from the same statement instead of one select per relation
+    @Query("SELECT new storeApplication.demo.dto.WarehouseStockResponse(ws.id.itemId, i.name, ws.id.warehouseId, " +
+           "w.name, ws.quantity) FROM WarehouseStock ws JOIN ws.item i JOIN ws.warehouse w " +
+           "WHERE ws.id.itemId = :itemId AND ws.id.warehouseId = :warehouseId")
+    Optional<WarehouseStockResponse> findResponse(@Param("itemId") Integer itemId,
+                                                  @Param("warehouseId") Integer warehouseId);
+
+    @Query("SELECT new storeApplication.demo.dto.WarehouseStockResponse(ws.id.itemId, i.name, ws.id.warehouseId, " +
+           "w.name, ws.quantity) FROM WarehouseStock ws JOIN ws.item i JOIN ws.warehouse w " +
+           "ORDER BY ws.id.itemId, ws.id.warehouseId")
+    List<WarehouseStockResponse> findAllResponses();
 }
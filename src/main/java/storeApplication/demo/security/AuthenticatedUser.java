@@ -0,0 +1,35 @@
+package storeApplication.demo.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * The caller of a request, resolved once from its JWT by {@link JwtAuthenticationFilter}.
+ * Controllers take it as a method parameter.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthenticatedUser implements Principal {
+
+    /** Role of the order export and the dead-letter endpoints */
+    public static final String ADMIN = "ADMIN";
+
+    private String username;
+    private Integer userId;
+    private List<String> roles = List.of();
+
+    public AuthenticatedUser(String username, Integer userId) {
+        this.username = username;
+        this.userId = userId;
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -0,0 +1,76 @@
+package storeApplication.demo.security;
+
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import storeApplication.demo.model.User;
+import storeApplication.demo.repository.UserRepository;
+import storeApplication.demo.util.JwtUtil;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns a JWT into an {@link AuthenticatedUser}. Login tokens carry the user id; registration tokens and
+ * tokens issued before that claim existed fall back to a user lookup, cached for a short TTL.
+ * Logged-out tokens are refused.
+ */
+@Slf4j
+@Component
+public class AuthenticatedUserService {
+
+    private final JwtUtil jwtUtil;
+    private final TokenRevocationService tokenRevocationService;
+    private final UserRepository userRepository;
+    private final Map<String, CachedUserId> legacyUserIds = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedUserId> eldest) {
+                    return size() > legacyCacheMaxEntries;
+                }
+            });
+
+    @Value("${jwt.legacy-user-cache.max-entries:1000}")
+    private int legacyCacheMaxEntries;
+
+    @Value("${jwt.legacy-user-cache.ttl-ms:300000}")
+    private long legacyCacheTtlMs;
+
+    public AuthenticatedUserService(JwtUtil jwtUtil, TokenRevocationService tokenRevocationService,
+                                    UserRepository userRepository) {
+        this.jwtUtil = jwtUtil;
+        this.tokenRevocationService = tokenRevocationService;
+        this.userRepository = userRepository;
+    }
+
+    public AuthenticatedUser fromToken(String token) {
+        Claims claims = jwtUtil.getVerifiedClaims(token);
+        if (tokenRevocationService.isRevoked(JwtUtil.tokenId(token, claims))) {
+            throw new RuntimeException("Token has been revoked");
+        }
+        Integer userId = claims.get(JwtUtil.USER_ID_CLAIM, Integer.class);
+        List<?> roles = claims.get(JwtUtil.ROLES_CLAIM, List.class);
+        return new AuthenticatedUser(claims.getSubject(),
+                userId != null ? userId : legacyUserId(claims.getSubject()),
+                roles != null ? roles.stream().map(String::valueOf).toList() : List.of());
+    }
+
+    private Integer legacyUserId(String username) {
+        CachedUserId cached = legacyUserIds.get(username);
+        long now = System.currentTimeMillis();
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.userId();
+        }
+        Integer userId = userRepository.findByUsername(username)
+                .map(User::getId)
+                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+        legacyUserIds.put(username, new CachedUserId(userId, now + legacyCacheTtlMs));
+        return userId;
+    }
+
+    private record CachedUserId(Integer userId, long expiresAt) {
+    }
+}
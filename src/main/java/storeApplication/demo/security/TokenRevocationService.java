@@ -0,0 +1,104 @@
+package storeApplication.demo.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import storeApplication.demo.model.RevokedToken;
+import storeApplication.demo.repository.RevokedTokenRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Logged-out tokens. Every authenticated request asks {@link #isRevoked}; an in-memory Bloom filter
+ * answers almost all of them, and only its positive hits go to the revoked_tokens table.
+ * Each node adds the tokens revoked on other nodes every sync interval, which bounds how long a logged-out
+ * token stays usable elsewhere. The filter is rebuilt from the live rows less often, which drops expired
+ * tokens and keeps it sized.
+ */
+@Slf4j
+@Component
+public class TokenRevocationService {
+
+    private final RevokedTokenRepository repository;
+    private final Counter revokedHits;
+    private final Counter falsePositives;
+
+    @Value("${jwt.revocation.expected-entries:10000}")
+    private int expectedEntries;
+
+    @Value("${jwt.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    // Rows revoked on another node near the last sync may carry a slightly earlier clock
+    @Value("${jwt.revocation.sync-overlap-ms:2000}")
+    private long syncOverlapMs;
+
+    private volatile BloomFilter filter;
+    private LocalDateTime syncedUpTo;
+
+    public TokenRevocationService(RevokedTokenRepository repository, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.revokedHits = meterRegistry.counter("auth.revocation.lookups", "result", "revoked");
+        this.falsePositives = meterRegistry.counter("auth.revocation.lookups", "result", "false_positive");
+    }
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    public void revoke(String tokenId, String username, Date expiresAt) {
+        LocalDateTime expiry = expiresAt != null
+                ? LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault())
+                : LocalDateTime.now().plusDays(1);
+        repository.save(new RevokedToken(tokenId, username, expiry, LocalDateTime.now()));
+        // Under the lock so a rebuild running concurrently cannot swap in a filter without this token
+        synchronized (this) {
+            filter.put(tokenId);
+        }
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (!filter.mightContain(tokenId)) {
+            return false;
+        }
+        boolean revoked = repository.existsById(tokenId);
+        (revoked ? revokedHits : falsePositives).increment();
+        return revoked;
+    }
+
+    /**
+     * Adds the tokens revoked since the last sync or rebuild, on any node.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval-ms:5000}",
+            initialDelayString = "${jwt.revocation.sync-interval-ms:5000}")
+    public synchronized void sync() {
+        LocalDateTime started = LocalDateTime.now();
+        List<String> revoked = repository.findTokenIdsRevokedSince(syncedUpTo.minus(Duration.ofMillis(syncOverlapMs)));
+        revoked.forEach(filter::put);
+        syncedUpTo = started;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.rebuild-interval-ms:600000}",
+            initialDelayString = "${jwt.revocation.rebuild-interval-ms:600000}")
+    public synchronized void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        int purged = repository.deleteExpired(now);
+        List<String> active = repository.findActiveTokenIds(now);
+        // Headroom for the logouts until the next rebuild
+        BloomFilter next = new BloomFilter(Math.max(expectedEntries, active.size() * 2), falsePositiveRate);
+        active.forEach(next::put);
+        filter = next;
+        syncedUpTo = now;
+        log.info("Rebuilt token revocation filter: {} revoked tokens, {} expired purged, {} bits",
+                active.size(), purged, next.bitCount());
+    }
+}
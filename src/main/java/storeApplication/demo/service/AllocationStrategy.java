@@ -0,0 +1,19 @@
+package storeApplication.demo.service;
+
+import storeApplication.demo.dto.StockAllocation;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which warehouses should ship the lines of an order.
+ * Selected with {@code orders.allocation.strategy} (greedy | optimized).
+ */
+public interface AllocationStrategy {
+
+    /**
+     * Plans allocations for the requested quantities (itemId to quantity) from the current
+     * {@link WarehouseStockIndex}. Lines that cannot be covered are left partially or entirely unplanned.
+     */
+    List<StockAllocation> plan(Map<Integer, Integer> lines);
+}
@@ -0,0 +1,173 @@
+package storeApplication.demo.service;
+
+import com.example.contracts.PaymentRequestMessage;
+import com.example.contracts.PaymentResponseMessage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+import storeApplication.demo.config.RabbitMQConfig;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Payments over REST for {@code payments.mode=rest}, without holding a request thread while the bank works.
+ * A bulkhead caps calls in flight and a circuit breaker stops calling a failing bank; in both cases, and
+ * whenever the bank demonstrably did not take the payment (5xx, no connection), the request goes over AMQP instead.
+ * The bank publishes every outcome on payment.response as well, so a PENDING answer is always resolved.
+ * A 4xx means the bank refused the request itself: resending cannot help and the bank is healthy, so it is
+ * answered as {@link #REJECTED} and does not count against the breaker.
+ */
+@Slf4j
+@Service
+public class BankClient {
+
+    public static final String PENDING = "PENDING";
+
+    /** The bank refused the request with a 4xx; no outcome will arrive on payment.response */
+    public static final String REJECTED = "REJECTED";
+
+    private static final List<String> OUTCOMES = List.of(
+            "success", "declined", "rejected_by_bank", "timeout", "error", "rejected", "short_circuited");
+
+    private final WebClient webClient;
+    private final OutboxService outboxService;
+    private final Map<String, Timer> latencyByOutcome;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final Duration callTimeout;
+
+    public BankClient(@Qualifier("bankWebClient") WebClient webClient,
+                      OutboxService outboxService,
+                      MeterRegistry meterRegistry,
+                      @Value("${bank.client.max-in-flight:100}") int maxInFlight,
+                      @Value("${bank.client.call-timeout-ms:5000}") long callTimeoutMs,
+                      @Value("${bank.client.circuit.window-size:20}") int windowSize,
+                      @Value("${bank.client.circuit.failure-rate-threshold:0.5}") double failureRateThreshold,
+                      @Value("${bank.client.circuit.open-ms:10000}") long openMs) {
+        this.webClient = webClient;
+        this.outboxService = outboxService;
+        this.latencyByOutcome = OUTCOMES.stream().collect(Collectors.toUnmodifiableMap(outcome -> outcome,
+                outcome -> Timer.builder("bank.payment.latency")
+                        .description("Time to hand a payment to the bank, by outcome")
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)));
+        this.bulkhead = new Semaphore(maxInFlight);
+        this.circuitBreaker = new CircuitBreaker(windowSize, failureRateThreshold, openMs);
+        this.callTimeout = Duration.ofMillis(callTimeoutMs);
+        Gauge.builder("bank.client.in-flight", bulkhead, permits -> maxInFlight - permits.availablePermits())
+                .register(meterRegistry);
+        Gauge.builder("bank.client.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * SUCCESS or FAILED when the bank answered, PENDING when the outcome will arrive on payment.response.
+     */
+    public Mono<PaymentResponseMessage> submitPayment(PaymentRequestMessage request) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            if (!bulkhead.tryAcquire()) {
+                return viaQueue(request, started, "rejected");
+            }
+            if (!circuitBreaker.tryAcquire()) {
+                bulkhead.release();
+                return viaQueue(request, started, "short_circuited");
+            }
+            return webClient.post()
+                    .uri("/api/bank/payments")
+                    .bodyValue(request)
+                    .retrieve()
+                    .bodyToMono(PaymentResponseMessage.class)
+                    .timeout(callTimeout)
+                    .doOnNext(response -> {
+                        circuitBreaker.onSuccess();
+                        record(started, "SUCCESS".equals(response.status()) ? "success" : "declined");
+                    })
+                    .onErrorResume(error -> {
+                        if (error instanceof WebClientResponseException response
+                                && response.getStatusCode().is4xxClientError()) {
+                            // The bank is up and answered; only the request was wrong
+                            circuitBreaker.onSuccess();
+                            return rejected(request, started, response);
+                        }
+                        circuitBreaker.onFailure();
+                        return fallback(request, started, error);
+                    })
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL) {
+                            circuitBreaker.onIgnored();
+                        }
+                        bulkhead.release();
+                    });
+        });
+    }
+
+    private Mono<PaymentResponseMessage> fallback(PaymentRequestMessage request, long started, Throwable error) {
+        if (notDelivered(error)) {
+            log.warn("Bank call for order {} failed ({}), sending it over AMQP", request.orderId(), error.getMessage());
+            return viaQueue(request, started, "error");
+        }
+        // The bank may still be working on it; resending could charge twice, and its answer comes over AMQP anyway
+        log.warn("Bank call for order {} timed out, awaiting the outcome on payment.response", request.orderId());
+        record(started, "timeout");
+        return Mono.just(pending(request, "Payment outcome pending"));
+    }
+
+    private Mono<PaymentResponseMessage> rejected(PaymentRequestMessage request, long started,
+                                                  WebClientResponseException error) {
+        log.warn("Bank refused the payment request for order {} with {}", request.orderId(), error.getStatusCode());
+        record(started, "rejected_by_bank");
+        return Mono.just(new PaymentResponseMessage(request.orderId(), REJECTED, null,
+                "Payment request refused by the bank (" + error.getStatusCode().value() + ")"));
+    }
+
+    private Mono<PaymentResponseMessage> viaQueue(PaymentRequestMessage request, long started, String outcome) {
+        return Mono.fromCallable(() -> {
+                    outboxService.enqueue(RabbitMQConfig.BANK_EXCHANGE,
+                            RabbitMQConfig.PAYMENT_REQUEST_ROUTING_KEY, request);
+                    record(started, outcome);
+                    return pending(request, "Payment queued for the bank");
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // True when the bank cannot have taken the payment: it answered with a server error (its transaction
+    // rolled back), or no connection was made at all
+    private static boolean notDelivered(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError();
+        }
+        if (error instanceof WebClientRequestException) {
+            Throwable cause = error.getCause();
+            return cause instanceof ConnectException
+                    || (cause != null && cause.getClass().getSimpleName().startsWith("PoolAcquire"));
+        }
+        return false;
+    }
+
+    private static PaymentResponseMessage pending(PaymentRequestMessage request, String message) {
+        return new PaymentResponseMessage(request.orderId(), PENDING, null, message);
+    }
+
+    private void record(long started, String outcome) {
+        latencyByOutcome.get(outcome).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+}
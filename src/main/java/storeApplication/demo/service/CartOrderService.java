@@ -0,0 +1,139 @@
+package storeApplication.demo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import storeApplication.demo.dto.CartOrderRequest;
+import storeApplication.demo.dto.StockAllocation;
+import storeApplication.demo.model.Item;
+import storeApplication.demo.model.Order;
+import storeApplication.demo.model.OrderLine;
+import storeApplication.demo.model.enums.OrderStatus;
+import storeApplication.demo.repository.ItemRepository;
+import storeApplication.demo.repository.OrderLineRepository;
+import storeApplication.demo.repository.OrderRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Multi-item (cart) orders: every line is reserved, all or nothing, and written in one transaction, and the
+ * whole cart becomes a single order, so checkout needs one payment and one delivery request
+ * instead of one per item. The order row is a header without item_id and quantity whose price
+ * is the cart total; the items live in order_lines, one row per item and shipping warehouse.
+ */
+@Slf4j
+@Service
+public class CartOrderService {
+
+    private final OrderRepository orderRepository;
+    private final OrderLineRepository orderLineRepository;
+    private final ItemRepository itemRepository;
+    private final StockReservationService stockReservationService;
+    private final HotSkuService hotSkuService;
+    private final ProductCatalogCache productCatalogCache;
+    private final TransactionTemplate transactionTemplate;
+
+    public CartOrderService(OrderRepository orderRepository,
+                            OrderLineRepository orderLineRepository,
+                            ItemRepository itemRepository,
+                            StockReservationService stockReservationService,
+                            HotSkuService hotSkuService,
+                            ProductCatalogCache productCatalogCache,
+                            PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.orderLineRepository = orderLineRepository;
+        this.itemRepository = itemRepository;
+        this.stockReservationService = stockReservationService;
+        this.hotSkuService = hotSkuService;
+        this.productCatalogCache = productCatalogCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public Order createCartOrder(Integer userId, List<CartOrderRequest.Line> requestLines) {
+        if (requestLines == null || requestLines.isEmpty()) {
+            throw new RuntimeException("Cart is empty");
+        }
+        Map<Integer, Integer> quantities = new LinkedHashMap<>();
+        for (CartOrderRequest.Line line : requestLines) {
+            if (line.getItemId() == null || line.getQuantity() == null || line.getQuantity() <= 0) {
+                throw new RuntimeException("Every cart line needs an item and a positive quantity");
+            }
+            if (hotSkuService.isHot(line.getItemId())) {
+                throw new RuntimeException("Flash-sale item must be ordered on its own: " + line.getItemId());
+            }
+            quantities.merge(line.getItemId(), line.getQuantity(), Integer::sum);
+        }
+
+        Map<Integer, Item> items = itemRepository.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        if (items.size() != quantities.size()) {
+            throw new RuntimeException("Cart contains unknown items");
+        }
+
+        // All or nothing: reserve() puts back what it took when a line cannot be filled. Its decrements commit on
+        // their own before the order transaction opens, so no stock row stays locked while the cart is written
+        List<StockAllocation> allocations = stockReservationService.reserve(quantities);
+        Order order;
+        try {
+            order = transactionTemplate.execute(status -> {
+                BigDecimal total = BigDecimal.ZERO;
+                for (Map.Entry<Integer, Integer> line : quantities.entrySet()) {
+                    total = total.add(items.get(line.getKey()).getPrice().multiply(BigDecimal.valueOf(line.getValue())));
+                }
+
+                // The header has no single item or quantity; its price is the cart total and the items are its lines
+                Order header = new Order();
+                header.setUserId(userId);
+                header.setPrice(total);
+                header.setStatus(OrderStatus.PENDING);
+                header.setCreatedAt(LocalDateTime.now());
+                Order saved = orderRepository.save(header);
+
+                List<OrderLine> lines = new ArrayList<>();
+                for (StockAllocation allocation : allocations) {
+                    lines.add(new OrderLine(null, saved.getId(), allocation.getItemId(), allocation.getWarehouseId(),
+                            allocation.getQuantity(), items.get(allocation.getItemId()).getPrice()));
+                }
+                orderLineRepository.saveAll(lines);
+                return saved;
+            });
+        } catch (RuntimeException e) {
+            stockReservationService.release(allocations);
+            throw e;
+        }
+        quantities.keySet().forEach(productCatalogCache::refreshItemStock);
+        return order;
+    }
+
+    public boolean isCartOrder(Integer orderId) {
+        return orderLineRepository.existsByOrderId(orderId);
+    }
+
+    public List<OrderLine> getLines(Integer orderId) {
+        return orderLineRepository.findByOrderId(orderId);
+    }
+
+    public Order cancelCartOrder(Integer orderId) {
+        List<OrderLine> lines = transactionTemplate.execute(status -> {
+            if (orderRepository.transitionStatus(orderId, OrderStatus.PENDING, OrderStatus.CANCELLED) != 1) {
+                throw new RuntimeException("Only pending orders can be cancelled: " + orderId);
+            }
+            List<OrderLine> cancelled = orderLineRepository.findByOrderId(orderId);
+            stockReservationService.release(cancelled.stream()
+                    .map(line -> new StockAllocation(line.getItemId(), line.getWarehouseId(), line.getQuantity()))
+                    .toList());
+            return cancelled;
+        });
+        lines.forEach(line -> productCatalogCache.refreshItemStock(line.getItemId()));
+        return orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found: " + orderId));
+    }
+}
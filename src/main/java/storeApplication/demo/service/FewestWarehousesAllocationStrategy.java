@@ -0,0 +1,76 @@
+package storeApplication.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import storeApplication.demo.dto.StockAllocation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fills an order from as few warehouses as possible (greedy set cover): each round picks the
+ * warehouse that completes the most remaining lines, then covers the most remaining units.
+ * A warehouse that can ship the whole order is therefore always chosen on its own.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "orders.allocation.strategy", havingValue = "optimized", matchIfMissing = true)
+public class FewestWarehousesAllocationStrategy implements AllocationStrategy {
+
+    private final WarehouseStockIndex stockIndex;
+
+    @Override
+    public List<StockAllocation> plan(Map<Integer, Integer> lines) {
+        // warehouseId -> (itemId -> available), in descending stock order from the index
+        Map<Integer, Map<Integer, Integer>> stockByWarehouse = new LinkedHashMap<>();
+        lines.keySet().forEach(itemId -> stockIndex.levels(itemId).forEach(level ->
+                stockByWarehouse.computeIfAbsent(level.getWarehouseId(), id -> new HashMap<>())
+                        .put(itemId, level.getQuantity())));
+
+        Map<Integer, Integer> remaining = new LinkedHashMap<>(lines);
+        List<StockAllocation> plan = new ArrayList<>();
+
+        while (!remaining.isEmpty() && !stockByWarehouse.isEmpty()) {
+            Integer best = null;
+            int bestLines = 0;
+            int bestUnits = 0;
+            for (Map.Entry<Integer, Map<Integer, Integer>> warehouse : stockByWarehouse.entrySet()) {
+                int completedLines = 0;
+                int units = 0;
+                for (Map.Entry<Integer, Integer> line : remaining.entrySet()) {
+                    int available = warehouse.getValue().getOrDefault(line.getKey(), 0);
+                    units += Math.min(available, line.getValue());
+                    if (available >= line.getValue()) {
+                        completedLines++;
+                    }
+                }
+                if (completedLines > bestLines || (completedLines == bestLines && units > bestUnits)) {
+                    best = warehouse.getKey();
+                    bestLines = completedLines;
+                    bestUnits = units;
+                }
+            }
+            if (best == null) {
+                break;
+            }
+
+            Map<Integer, Integer> stock = stockByWarehouse.remove(best);
+            for (Map.Entry<Integer, Integer> line : new ArrayList<>(remaining.entrySet())) {
+                int take = Math.min(stock.getOrDefault(line.getKey(), 0), line.getValue());
+                if (take > 0) {
+                    plan.add(new StockAllocation(line.getKey(), best, take));
+                    if (take == line.getValue()) {
+                        remaining.remove(line.getKey());
+                    } else {
+                        remaining.put(line.getKey(), line.getValue() - take);
+                    }
+                }
+            }
+        }
+        return plan;
+    }
+}
@@ -0,0 +1,38 @@
+package storeApplication.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import storeApplication.demo.dto.StockAllocation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Original behaviour: each line independently takes from the warehouses with the most stock first.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "orders.allocation.strategy", havingValue = "greedy")
+public class GreedyAllocationStrategy implements AllocationStrategy {
+
+    private final WarehouseStockIndex stockIndex;
+
+    @Override
+    public List<StockAllocation> plan(Map<Integer, Integer> lines) {
+        List<StockAllocation> plan = new ArrayList<>();
+        lines.forEach((itemId, quantity) -> {
+            int remaining = quantity;
+            for (StockAllocation level : stockIndex.levels(itemId)) {
+                if (remaining == 0) {
+                    break;
+                }
+                int take = Math.min(remaining, level.getQuantity());
+                plan.add(new StockAllocation(itemId, level.getWarehouseId(), take));
+                remaining -= take;
+            }
+        });
+        return plan;
+    }
+}
@@ -0,0 +1,386 @@
+package storeApplication.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import storeApplication.demo.dto.StockAllocation;
+import storeApplication.demo.model.HotSku;
+import storeApplication.demo.model.Item;
+import storeApplication.demo.model.Order;
+import storeApplication.demo.model.enums.OrderStatus;
+import storeApplication.demo.repository.HotSkuRepository;
+import storeApplication.demo.repository.ItemRepository;
+import storeApplication.demo.repository.OrderRepository;
+import storeApplication.demo.repository.WarehouseStockRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Flash-sale mode for hot SKUs. While an item is hot its available units live in striped
+ * in-memory counters: orders claim units without touching warehouse_stock, and the claims are
+ * written to warehouse_stock and order_allocation in batches by a background flush.
+ * Units are only decremented in the database when flushed, so unflushed claims after a crash
+ * show up as PENDING orders without allocations and are re-queued on startup. Which items are hot
+ * is kept in hot_skus and restored on startup once those claims are flushed.
+ */
+@Slf4j
+@Service
+public class HotSkuService {
+
+    private final OrderRepository orderRepository;
+    private final ItemRepository itemRepository;
+    private final HotSkuRepository hotSkuRepository;
+    private final WarehouseStockRepository warehouseStockRepository;
+    private final StockReservationService stockReservationService;
+    private final ProductCatalogCache productCatalogCache;
+    private final OrderStatusViewService orderStatusViewService;
+    private final OrderEventHub orderEventHub;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter rejected;
+
+    private final Map<Integer, HotItem> hotItems = new ConcurrentHashMap<>();
+    private final Queue<PendingClaim> pendingClaims = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @Value("${orders.hot-sku.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    public HotSkuService(OrderRepository orderRepository,
+                         ItemRepository itemRepository,
+                         HotSkuRepository hotSkuRepository,
+                         WarehouseStockRepository warehouseStockRepository,
+                         StockReservationService stockReservationService,
+                         ProductCatalogCache productCatalogCache,
+                         OrderStatusViewService orderStatusViewService,
+                         OrderEventHub orderEventHub,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.itemRepository = itemRepository;
+        this.hotSkuRepository = hotSkuRepository;
+        this.warehouseStockRepository = warehouseStockRepository;
+        this.stockReservationService = stockReservationService;
+        this.productCatalogCache = productCatalogCache;
+        this.orderStatusViewService = orderStatusViewService;
+        this.orderEventHub = orderEventHub;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rejected = meterRegistry.counter("orders.hot-sku.rejected");
+        Gauge.builder("orders.hot-sku.pending-claims", pendingCount, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    public boolean isHot(Integer itemId) {
+        return itemId != null && hotItems.containsKey(itemId);
+    }
+
+    public boolean isSoldOut(Integer itemId) {
+        HotItem hot = itemId != null ? hotItems.get(itemId) : null;
+        return hot != null && hot.counter.isSoldOut();
+    }
+
+    public int enable(Integer itemId) {
+        Item item = itemRepository.findById(itemId)
+                .orElseThrow(() -> new RuntimeException("Item not found: " + itemId));
+        if (!hotSkuRepository.existsById(itemId)) {
+            hotSkuRepository.save(new HotSku(itemId, LocalDateTime.now()));
+        }
+        HotItem hot = activate(item);
+        log.info("Hot SKU mode enabled for item {} with {} units", itemId, hot.counter.remaining());
+        return hot.counter.remaining();
+    }
+
+    public void disable(Integer itemId) {
+        hotSkuRepository.deleteById(itemId);
+        if (hotItems.remove(itemId) != null) {
+            reconcile();
+            log.info("Hot SKU mode disabled for item {}", itemId);
+        }
+    }
+
+    /**
+     * Re-reads the database level of a hot item, e.g. after a restock.
+     */
+    public void reload(Integer itemId) {
+        HotItem hot = itemId != null ? hotItems.get(itemId) : null;
+        if (hot == null) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            while (drainBatch() > 0) {
+                // keep draining so the database level below includes every claim so far
+            }
+            resync(itemId, hot);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public void reloadAll() {
+        hotItems.keySet().forEach(this::reload);
+    }
+
+    /**
+     * Claims units for an order from the in-memory counters. An empty result means the item
+     * is sold out (or has fewer units left than requested) and the order was rejected.
+     */
+    public Optional<Order> createOrder(Integer userId, Integer itemId, int quantity) {
+        HotItem hot = hotItems.get(itemId);
+        if (hot == null) {
+            throw new RuntimeException("Item is not in hot SKU mode: " + itemId);
+        }
+        if (quantity <= 0 || !claim(hot, quantity)) {
+            rejected.increment();
+            return Optional.empty();
+        }
+
+        try {
+            Order order = new Order();
+            order.setUserId(userId);
+            order.setItemId(itemId);
+            order.setQuantity(quantity);
+            order.setPrice(hot.price);
+            order.setStatus(OrderStatus.PENDING);
+            order.setCreatedAt(LocalDateTime.now());
+            Order saved = orderRepository.save(order);
+
+            enqueue(new PendingClaim(saved.getId(), itemId, quantity));
+            return Optional.of(saved);
+        } catch (RuntimeException e) {
+            unclaim(hot, quantity);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${orders.hot-sku.flush-interval-ms:200}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            while (drainBatch() > 0) {
+                // drain until the queue is empty
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void reconcile() {
+        flushLock.lock();
+        try {
+            while (drainBatch() > 0) {
+                // drain until the queue is empty
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverUnflushedClaims() {
+        List<Order> orphans = orderRepository.findWithoutAllocations(OrderStatus.PENDING);
+        for (Order order : orphans) {
+            enqueue(new PendingClaim(order.getId(), order.getItemId(), order.getQuantity()));
+        }
+        if (!orphans.isEmpty()) {
+            log.warn("Re-queued {} hot SKU claims that were not flushed before shutdown", orphans.size());
+        }
+
+        // Flushed first, so the restored counters start from a database level that already has those claims
+        reconcile();
+        for (HotSku sku : hotSkuRepository.findAll()) {
+            Optional<Item> item = itemRepository.findById(sku.getItemId());
+            if (item.isEmpty()) {
+                hotSkuRepository.delete(sku);
+                continue;
+            }
+            log.info("Hot SKU mode restored for item {} with {} units",
+                    sku.getItemId(), activate(item.get()).counter.remaining());
+        }
+    }
+
+    private HotItem activate(Item item) {
+        return hotItems.computeIfAbsent(item.getId(), id -> new HotItem(item.getPrice(),
+                new StripedStockCounter(availableInDatabase(id), Runtime.getRuntime().availableProcessors())));
+    }
+
+    // Takes units off the counter and counts them as pending in one step as far as reload() can tell
+    private boolean claim(HotItem hot, int quantity) {
+        Lock claims = hot.claims.readLock();
+        claims.lock();
+        try {
+            if (!hot.counter.tryClaim(quantity)) {
+                return false;
+            }
+            hot.pendingUnits.addAndGet(quantity);
+            return true;
+        } finally {
+            claims.unlock();
+        }
+    }
+
+    private void unclaim(HotItem hot, int quantity) {
+        Lock claims = hot.claims.readLock();
+        claims.lock();
+        try {
+            hot.pendingUnits.addAndGet(-quantity);
+            hot.counter.release(quantity);
+        } finally {
+            claims.unlock();
+        }
+    }
+
+    private int availableInDatabase(Integer itemId) {
+        return warehouseStockRepository.sumQuantityByItemId(itemId).intValue();
+    }
+
+    private void enqueue(PendingClaim claim) {
+        pendingClaims.add(claim);
+        pendingCount.incrementAndGet();
+    }
+
+    private int drainBatch() {
+        Map<Integer, List<PendingClaim>> byItem = new LinkedHashMap<>();
+        int drained = 0;
+        PendingClaim claim;
+        while (drained < flushBatchSize && (claim = pendingClaims.poll()) != null) {
+            byItem.computeIfAbsent(claim.itemId(), id -> new ArrayList<>()).add(claim);
+            drained++;
+        }
+        pendingCount.addAndGet(-drained);
+
+        byItem.forEach(this::flushItem);
+        return drained;
+    }
+
+    // One conditional decrement per warehouse for the whole batch, then one transaction for the allocation rows
+    private void flushItem(Integer itemId, List<PendingClaim> claims) {
+        int units = claims.stream().mapToInt(PendingClaim::quantity).sum();
+        boolean cancelled = false;
+        try {
+            List<StockAllocation> reserved = stockReservationService.reserve(itemId, units);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    List<StockAllocation> pool = new ArrayList<>(reserved);
+                    for (PendingClaim pending : claims) {
+                        stockReservationService.recordAllocations(pending.orderId(), take(pool, pending.quantity()));
+                    }
+                });
+            } catch (RuntimeException e) {
+                stockReservationService.release(reserved);
+                throw e;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Batch flush of {} claims for item {} failed ({}), flushing one by one",
+                    claims.size(), itemId, e.getMessage());
+            for (PendingClaim claim : claims) {
+                cancelled |= !flushSingle(claim);
+            }
+        }
+
+        HotItem hot = hotItems.get(itemId);
+        if (hot != null) {
+            hot.pendingUnits.addAndGet(-units);
+            if (cancelled) {
+                // The cancelled claims never reached the database; the counter gets back whatever it really has
+                resync(itemId, hot);
+            }
+        }
+        productCatalogCache.refreshItemStock(itemId);
+    }
+
+    // False when the claim could not be written and its order was cancelled
+    private boolean flushSingle(PendingClaim claim) {
+        try {
+            List<StockAllocation> reserved = stockReservationService.reserve(claim.itemId(), claim.quantity());
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        stockReservationService.recordAllocations(claim.orderId(), reserved));
+            } catch (RuntimeException e) {
+                stockReservationService.release(reserved);
+                throw e;
+            }
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Could not flush hot SKU claim for order {}, cancelling it: {}", claim.orderId(), e.getMessage());
+            // Only while still pending, so a payment or cancel that landed meanwhile is not overwritten
+            Integer changed = transactionTemplate.execute(status -> orderRepository.transitionStatus(
+                    claim.orderId(), OrderStatus.PENDING, OrderStatus.CANCELLED));
+            if (changed != null && changed > 0) {
+                orderStatusViewService.refresh(claim.orderId()).ifPresent(orderEventHub::publish);
+            }
+            return false;
+        }
+    }
+
+    // Resets the counter to the database level less the claims not flushed yet; callers hold flushLock
+    private void resync(Integer itemId, HotItem hot) {
+        // No claim is between its counter decrement and its pending count while the write lock is held
+        Lock claims = hot.claims.writeLock();
+        claims.lock();
+        try {
+            hot.counter.reset(availableInDatabase(itemId) - hot.pendingUnits.get());
+        } finally {
+            claims.unlock();
+        }
+    }
+
+    // Splits `quantity` units off the front of the reserved allocations
+    private static List<StockAllocation> take(List<StockAllocation> pool, int quantity) {
+        List<StockAllocation> parts = new ArrayList<>();
+        int needed = quantity;
+        while (needed > 0) {
+            StockAllocation head = pool.get(0);
+            int amount = Math.min(needed, head.getQuantity());
+            parts.add(new StockAllocation(head.getItemId(), head.getWarehouseId(), amount));
+            needed -= amount;
+            if (amount == head.getQuantity()) {
+                pool.remove(0);
+            } else {
+                pool.set(0, new StockAllocation(head.getItemId(), head.getWarehouseId(), head.getQuantity() - amount));
+            }
+        }
+        return parts;
+    }
+
+    private record PendingClaim(Integer orderId, Integer itemId, int quantity) {
+    }
+
+    private static final class HotItem {
+        private final BigDecimal price;
+        private final StripedStockCounter counter;
+        private final AtomicInteger pendingUnits = new AtomicInteger();
+        // Claims share the read side; reload() takes the write side to reset the counter
+        private final ReentrantReadWriteLock claims = new ReentrantReadWriteLock();
+
+        private HotItem(BigDecimal price, StripedStockCounter counter) {
+            this.price = price;
+            this.counter = counter;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package storeApplication.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import storeApplication.demo.model.IdempotencyRecord;
+import storeApplication.demo.repository.IdempotencyRecordRepository;
+
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per Idempotency-Key. Finished responses are kept in a bounded LRU
+ * in front of the idempotency_keys table; duplicates that arrive while the first request is still
+ * running on this instance wait for its result, and duplicates of a request running on another
+ * instance get 409 Conflict. Only successful responses are recorded, so a failed attempt can be
+ * retried with the same key. A key reused with a different request body gets 422 Unprocessable Entity
+ * instead of the first request's response.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final String IN_PROGRESS = "IN_PROGRESS";
+    private static final String COMPLETED = "COMPLETED";
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, StoredResponse> completed = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                    return size() > maxEntries;
+                }
+            });
+
+    @Value("${idempotency.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${idempotency.wait-timeout-ms:5000}")
+    private long waitTimeoutMs;
+
+    @Value("${idempotency.retention-hours:24}")
+    private long retentionHours;
+
+    @Value("${idempotency.in-progress-timeout-minutes:5}")
+    private long inProgressTimeoutMinutes;
+
+    public IdempotencyService(IdempotencyRecordRepository repository, ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Runs {@code action} unless a request with the same key and scope already ran, in which case
+     * its original response is returned, or 422 if that request had a different body. Requests without
+     * a key run as before.
+     */
+    public <T> ResponseEntity<T> execute(String key, String scope, Object request, Class<T> bodyType,
+                                         Supplier<ResponseEntity<T>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > 255) {
+            return ResponseEntity.badRequest().build();
+        }
+        String requestHash = hash(request);
+        String cacheKey = cacheKey(scope, key);
+        StoredResponse cached = cachedResponse(cacheKey);
+        if (cached != null) {
+            return replay(cached, requestHash, bodyType);
+        }
+
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(cacheKey, mine);
+        if (running != null) {
+            return awaitDuplicate(running, key, scope, request, requestHash, bodyType, action);
+        }
+        try {
+            IdempotencyRecord record;
+            try {
+                record = repository.saveAndFlush(new IdempotencyRecord(null, scope, key, requestHash, IN_PROGRESS,
+                        null, null, LocalDateTime.now()));
+            } catch (DataIntegrityViolationException duplicate) {
+                IdempotencyRecord existing = repository.findByScopeAndIdempotencyKey(scope, key).orElse(null);
+                if (existing != null && !sameRequest(existing.getRequestHash(), requestHash)) {
+                    return ResponseEntity.unprocessableEntity().build();
+                }
+                if (existing != null && COMPLETED.equals(existing.getStatus())) {
+                    StoredResponse stored = new StoredResponse(existing.getResponseStatus(),
+                            existing.getResponseBody(), existing.getRequestHash(), existing.getCreatedAt());
+                    completed.put(cacheKey, stored);
+                    mine.complete(stored);
+                    return replay(stored, requestHash, bodyType);
+                }
+                // Still running on another instance
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+
+            ResponseEntity<T> response;
+            try {
+                response = action.get();
+            } catch (RuntimeException e) {
+                repository.deleteInProgress(scope, key);
+                throw e;
+            }
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                repository.deleteInProgress(scope, key);
+                return response;
+            }
+
+            try {
+                record.setStatus(COMPLETED);
+                record.setResponseStatus(response.getStatusCode().value());
+                record.setResponseBody(objectMapper.writeValueAsString(response.getBody()));
+                repository.save(record);
+                StoredResponse stored = new StoredResponse(record.getResponseStatus(), record.getResponseBody(),
+                        requestHash, record.getCreatedAt());
+                completed.put(cacheKey, stored);
+                mine.complete(stored);
+            } catch (Exception e) {
+                // The work is done; losing the record only means a retry with this key is not deduplicated
+                log.error("Could not record response for idempotency key {} ({}): {}", key, scope, e.getMessage());
+                repository.deleteInProgress(scope, key);
+            }
+            return response;
+        } finally {
+            // Waiters that get null run the request themselves (the first attempt failed or ran elsewhere)
+            mine.complete(null);
+            inFlight.remove(cacheKey, mine);
+        }
+    }
+
+    /**
+     * Whether a finished response for this key is already cached on this instance.
+     */
+    public boolean hasCachedResponse(String key, String scope) {
+        return key != null && cachedResponse(cacheKey(scope, key)) != null;
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:600000}")
+    public void purgeExpired() {
+        int expired = repository.deleteCreatedBefore(LocalDateTime.now().minusHours(retentionHours));
+        int abandoned = repository.deleteInProgressCreatedBefore(
+                LocalDateTime.now().minusMinutes(inProgressTimeoutMinutes));
+        if (expired + abandoned > 0) {
+            log.info("Purged {} expired and {} abandoned idempotency keys", expired, abandoned);
+        }
+    }
+
+    private <T> ResponseEntity<T> awaitDuplicate(CompletableFuture<StoredResponse> running, String key, String scope,
+                                                 Object request, String requestHash, Class<T> bodyType,
+                                                 Supplier<ResponseEntity<T>> action) {
+        StoredResponse stored;
+        try {
+            stored = running.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return stored != null ? replay(stored, requestHash, bodyType) : execute(key, scope, request, bodyType, action);
+    }
+
+    private StoredResponse cachedResponse(String cacheKey) {
+        StoredResponse cached = completed.get(cacheKey);
+        if (cached != null && cached.createdAt().isBefore(LocalDateTime.now().minusHours(retentionHours))) {
+            completed.remove(cacheKey);
+            return null;
+        }
+        return cached;
+    }
+
+    private <T> ResponseEntity<T> replay(StoredResponse stored, String requestHash, Class<T> bodyType) {
+        if (!sameRequest(stored.requestHash(), requestHash)) {
+            // The key was reused for a different request; its response belongs to the first one
+            return ResponseEntity.unprocessableEntity().build();
+        }
+        try {
+            T body = stored.body() != null ? objectMapper.readValue(stored.body(), bodyType) : null;
+            return ResponseEntity.status(stored.status()).header(REPLAYED_HEADER, "true").body(body);
+        } catch (Exception e) {
+            throw new RuntimeException("Could not replay stored response: " + e.getMessage());
+        }
+    }
+
+    // Keys recorded before request hashes were kept match any request
+    private static boolean sameRequest(String recordedHash, String requestHash) {
+        return recordedHash == null || recordedHash.equals(requestHash);
+    }
+
+    // Over the body as JSON, so it does not depend on how the client formatted it
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (Exception e) {
+            throw new RuntimeException("Could not hash request: " + e.getMessage());
+        }
+    }
+
+    private static String cacheKey(String scope, String key) {
+        return scope + '\n' + key;
+    }
+
+    private record StoredResponse(int status, String body, String requestHash, LocalDateTime createdAt) {
+    }
+}
@@ -0,0 +1,54 @@
+package storeApplication.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import storeApplication.demo.dto.AuthResponse;
+import storeApplication.demo.dto.LoginRequest;
+import storeApplication.demo.model.User;
+import storeApplication.demo.repository.UserRepository;
+import storeApplication.demo.repository.UserRoleRepository;
+import storeApplication.demo.util.JwtUtil;
+
+/**
+ * Login with a single user lookup: the loaded user is checked against the password, rehashed
+ * when its BCrypt cost is below the calibrated one, and issued one token carrying its id and roles.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LoginService {
+
+    private final UserRepository userRepository;
+    private final UserRoleRepository userRoleRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final JwtUtil jwtUtil;
+
+    public AuthResponse login(LoginRequest request) {
+        User user = userRepository.findByUsername(request.getUsername())
+                .orElseThrow(() -> new RuntimeException("Invalid username or password"));
+        if (request.getPassword() == null || !passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+            throw new RuntimeException("Invalid username or password");
+        }
+        upgradePasswordHash(user, request.getPassword());
+
+        String token = jwtUtil.generateToken(user.getUsername(), user.getId(),
+                userRoleRepository.findRolesByUserId(user.getId()));
+        return new AuthResponse(token, "Bearer", user.getUsername(), "Login successful");
+    }
+
+    // A failed rehash must not fail the login; the old hash stays valid
+    private void upgradePasswordHash(User user, String rawPassword) {
+        if (!passwordEncoder.upgradeEncoding(user.getPassword())) {
+            return;
+        }
+        try {
+            user.setPassword(passwordEncoder.encode(rawPassword));
+            userRepository.save(user);
+            log.info("Rehashed password of user {} with the current BCrypt strength", user.getUsername());
+        } catch (RuntimeException e) {
+            log.warn("Could not rehash password of user {}: {}", user.getUsername(), e.getMessage());
+        }
+    }
+}
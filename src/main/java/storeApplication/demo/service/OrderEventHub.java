@@ -0,0 +1,144 @@
+package storeApplication.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import storeApplication.demo.dto.OrderStatusEvent;
+import storeApplication.demo.model.OrderStatusView;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process fan-out of order status changes to SSE subscribers, per order and per user.
+ * Every subscriber has its own small bounded buffer and publishing never blocks: a subscriber
+ * whose buffer is full is evicted (its stream completes and the browser reconnects), so one
+ * slow connection cannot hold up the listeners or the other subscribers.
+ */
+@Slf4j
+@Service
+public class OrderEventHub {
+
+    private final Map<Integer, Set<Subscriber>> orderSubscribers = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Subscriber>> userSubscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Counter evicted;
+
+    @Value("${orders.events.subscriber-buffer:32}")
+    private int subscriberBuffer;
+
+    @Value("${orders.events.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${orders.events.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    public OrderEventHub(MeterRegistry meterRegistry) {
+        this.evicted = meterRegistry.counter("orders.events.evicted");
+        Gauge.builder("orders.events.subscribers", subscriberCount, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers immediately, so nothing published between this call and the subscription is missed.
+     */
+    public Flux<OrderStatusEvent> subscribeToOrder(Integer orderId) {
+        return register(orderSubscribers, orderId);
+    }
+
+    public Flux<OrderStatusEvent> subscribeToUser(Integer userId) {
+        return register(userSubscribers, userId);
+    }
+
+    public void publish(OrderStatusView view) {
+        OrderStatusEvent event = toEvent(view);
+        deliver(orderSubscribers.get(event.getOrderId()), event);
+        if (event.getUserId() != null) {
+            deliver(userSubscribers.get(event.getUserId()), event);
+        }
+    }
+
+    /**
+     * Wraps events as SSE with a periodic comment, so dead connections are noticed and proxies keep the stream open.
+     */
+    public Flux<ServerSentEvent<OrderStatusEvent>> toServerSentEvents(Flux<OrderStatusEvent> events) {
+        return events.publish(shared -> shared
+                .map(event -> ServerSentEvent.builder(event)
+                        .id(event.getOrderId() + "-" + event.getTimestamp())
+                        .event("order-status")
+                        .build())
+                .mergeWith(Flux.interval(Duration.ofSeconds(heartbeatSeconds))
+                        .map(tick -> ServerSentEvent.<OrderStatusEvent>builder().comment("keep-alive").build())
+                        .takeUntilOther(shared.ignoreElements())));
+    }
+
+    public static OrderStatusEvent toEvent(OrderStatusView view) {
+        return new OrderStatusEvent(view.getId(), view.getUserId(),
+                view.getStatus() != null ? view.getStatus().name() : null,
+                view.getDeliveryStatus(), view.getTrackingId(), System.currentTimeMillis());
+    }
+
+    public static boolean isFinal(OrderStatusEvent event) {
+        return "DELIVERED".equals(event.getStatus()) || "CANCELLED".equals(event.getStatus());
+    }
+
+    private Flux<OrderStatusEvent> register(Map<Integer, Set<Subscriber>> registry, Integer key) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new RuntimeException("Too many order event subscribers");
+        }
+        Subscriber subscriber = new Subscriber(
+                Sinks.many().unicast().onBackpressureBuffer(new ArrayBlockingQueue<>(subscriberBuffer)));
+        registry.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        return subscriber.sink.asFlux().doFinally(signal -> {
+            if (subscriber.removed.compareAndSet(false, true)) {
+                registry.computeIfPresent(key, (k, subscribers) -> {
+                    subscribers.remove(subscriber);
+                    return subscribers.isEmpty() ? null : subscribers;
+                });
+                subscriberCount.decrementAndGet();
+            }
+        });
+    }
+
+    private void deliver(Set<Subscriber> subscribers, OrderStatusEvent event) {
+        if (subscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            Sinks.EmitResult result;
+            // Listener threads publish concurrently; a unicast sink accepts one emitter at a time
+            synchronized (subscriber) {
+                result = subscriber.sink.tryEmitNext(event);
+                if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                    subscriber.sink.tryEmitComplete();
+                }
+            }
+            if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                evicted.increment();
+                log.warn("Evicted slow order event subscriber (order {}, buffer {} full)",
+                        event.getOrderId(), subscriberBuffer);
+            }
+        }
+    }
+
+    private static final class Subscriber {
+        private final Sinks.Many<OrderStatusEvent> sink;
+        private final AtomicBoolean removed = new AtomicBoolean();
+
+        private Subscriber(Sinks.Many<OrderStatusEvent> sink) {
+            this.sink = sink;
+        }
+    }
+}
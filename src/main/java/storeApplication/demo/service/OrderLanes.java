@@ -0,0 +1,151 @@
+package storeApplication.demo.service;
+
+import com.example.contracts.listener.RecentMessageIds;
+import com.example.contracts.retry.PartialBatchFailureException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Single-threaded lanes for order messages. Every message of an order lands on the same lane, chosen by
+ * hashing its order id, so one order's updates run strictly in arrival order while different orders run
+ * in parallel. Used with the single-consumer, batching orderLaneContainerFactory: the consumer splits each
+ * batch over the lanes and the batch is acked once all of them have handled their part; messages that
+ * failed are handed back to the retry queues by position. Publishers resend messages whose confirm came late,
+ * so messages whose id was handled recently, or earlier in the same batch, are dropped before dispatch.
+ */
+@Slf4j
+@Component
+public class OrderLanes {
+
+    private final ThreadPoolExecutor[] lanes;
+    private final MessageConverter messageConverter;
+    private final RecentMessageIds recentMessageIds;
+
+    public OrderLanes(@Value("${orders.lanes.count:0}") int count, MeterRegistry meterRegistry,
+                      MessageConverter messageConverter, RecentMessageIds recentMessageIds) {
+        this.messageConverter = messageConverter;
+        this.recentMessageIds = recentMessageIds;
+        int laneCount = count > 0 ? count : Runtime.getRuntime().availableProcessors();
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String name = "order-lane-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> new Thread(runnable, name));
+        }
+        Gauge.builder("orders.lanes.backlog", lanes,
+                        all -> Arrays.stream(all).mapToInt(lane -> lane.getQueue().size()).sum())
+                .description("Batch shares waiting for their order lane")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Decodes a batch, splits it by lane and hands each lane its share in one call, each order's messages in
+     * their original order. Returns once every lane is done, so the container can ack the whole batch afterwards.
+     * Messages that cannot be decoded or that the handler reports as failed are thrown back in a
+     * {@link PartialBatchFailureException}, so only those are retried.
+     */
+    public <T> void process(List<Message> batch, Class<T> type, Function<T, Integer> orderIdOf,
+                            BiConsumer<List<T>, BiConsumer<T, Exception>> handler) {
+        Map<Integer, Throwable> failures = new ConcurrentHashMap<>();
+        Map<T, Integer> positions = new IdentityHashMap<>();
+        Map<Integer, List<T>> byLane = new LinkedHashMap<>();
+        Map<Integer, String> messageIds = new LinkedHashMap<>();
+        Set<String> inBatch = new HashSet<>();
+        for (int position = 0; position < batch.size(); position++) {
+            String messageId = batch.get(position).getMessageProperties().getMessageId();
+            if (messageId != null && (recentMessageIds.contains(messageId) || !inBatch.add(messageId))) {
+                log.info("Dropped repeated message {}", messageId);
+                continue;
+            }
+            T message;
+            try {
+                message = decode(batch.get(position), type);
+            } catch (MessageConversionException e) {
+                failures.put(position, e);
+                continue;
+            }
+            positions.put(message, position);
+            messageIds.put(position, messageId);
+            byLane.computeIfAbsent(laneOf(orderIdOf.apply(message)), lane -> new ArrayList<>()).add(message);
+        }
+
+        BiConsumer<T, Exception> failed = (message, error) -> failures.put(positions.get(message), error);
+        List<List<T>> shares = new ArrayList<>(byLane.values());
+        List<Future<?>> running = new ArrayList<>(shares.size());
+        byLane.forEach((lane, messages) -> running.add(lanes[lane].submit(() -> handler.accept(messages, failed))));
+        for (int i = 0; i < running.size(); i++) {
+            try {
+                running.get(i).get();
+            } catch (ExecutionException e) {
+                log.error("Order lane failed to handle its share of a batch: {}", e.getCause().getMessage(), e.getCause());
+                for (T message : shares.get(i)) {
+                    failures.putIfAbsent(positions.get(message), e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for order lanes", e);
+            }
+        }
+        messageIds.forEach((position, messageId) -> {
+            if (!failures.containsKey(position)) {
+                recentMessageIds.add(messageId);
+            }
+        });
+        if (!failures.isEmpty()) {
+            throw new PartialBatchFailureException(failures, batch.size());
+        }
+    }
+
+    private <T> T decode(Message message, Class<T> type) {
+        message.getMessageProperties().setInferredArgumentType(type);
+        Object payload = messageConverter.fromMessage(message);
+        if (!type.isInstance(payload)) {
+            throw new MessageConversionException("Expected " + type.getSimpleName() + " but got "
+                    + (payload != null ? payload.getClass().getName() : "null"));
+        }
+        return type.cast(payload);
+    }
+
+    int laneOf(Integer orderId) {
+        if (orderId == null) {
+            return 0;
+        }
+        // Spread sequential ids evenly
+        int hash = orderId * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.length);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
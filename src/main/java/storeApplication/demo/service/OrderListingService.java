@@ -0,0 +1,164 @@
+package storeApplication.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import storeApplication.demo.dto.OrderPage;
+import storeApplication.demo.dto.OrderSummary;
+import storeApplication.demo.model.OrderLine;
+import storeApplication.demo.model.enums.OrderStatus;
+import storeApplication.demo.repository.OrderLineRepository;
+import storeApplication.demo.repository.OrderRepository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Order listings that keep heap use flat: users page through their own orders with a keyset
+ * cursor on (created_at, id), and the admin export streams rows from a JDBC cursor straight
+ * to the response instead of collecting them.
+ */
+@Slf4j
+@Service
+public class OrderListingService {
+
+    private static final String EXPORT_SQL =
+            "SELECT id, user_id, item_id, quantity, price, status, created_at, delivery_request_sent " +
+            "FROM orders ORDER BY id";
+
+    private final OrderRepository orderRepository;
+    private final OrderLineRepository orderLineRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+    @Value("${orders.listing.max-page-size:200}")
+    private int maxPageSize;
+
+    public OrderListingService(OrderRepository orderRepository,
+                               OrderLineRepository orderLineRepository,
+                               DataSource dataSource,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper,
+                               @Value("${orders.export.fetch-size:500}") int fetchSize) {
+        this.orderRepository = orderRepository;
+        this.orderLineRepository = orderLineRepository;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // PostgreSQL only honours the fetch size (a server-side cursor) inside a transaction
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    public OrderPage findByUser(Integer userId, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        // One extra row tells whether there is a next page without a count query
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        List<OrderSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = orderRepository.findFirstPageByUser(userId, page);
+        } else {
+            Cursor position = decode(cursor);
+            rows = orderRepository.findPageByUserAfter(userId, position.createdAt(), position.id(), page);
+        }
+        if (rows.size() <= pageSize) {
+            return new OrderPage(withLines(rows), null);
+        }
+        List<OrderSummary> orders = withLines(rows.subList(0, pageSize));
+        OrderSummary last = orders.get(pageSize - 1);
+        return new OrderPage(orders, encode(last.getCreatedAt(), last.getId()));
+    }
+
+    /**
+     * Writes every order as newline-delimited JSON while the rows are being read.
+     */
+    public long exportAll(OutputStream out) throws IOException {
+        SequenceWriter writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n")
+                .writeValues(out);
+        long[] exported = {0};
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(EXPORT_SQL, rs -> {
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            String orderStatus = rs.getString("status");
+            OrderSummary row = new OrderSummary(
+                    rs.getInt("id"),
+                    (Integer) rs.getObject("user_id"),
+                    (Integer) rs.getObject("item_id"),
+                    (Integer) rs.getObject("quantity"),
+                    rs.getBigDecimal("price"),
+                    orderStatus != null ? OrderStatus.valueOf(orderStatus) : null,
+                    createdAt != null ? createdAt.toLocalDateTime() : null,
+                    (Boolean) rs.getObject("delivery_request_sent"));
+            try {
+                writer.write(row);
+            } catch (IOException e) {
+                // Client went away; abort the query instead of reading the rest of the table
+                throw new UncheckedIOException(e);
+            }
+            exported[0]++;
+        }));
+        writer.flush();
+        if (exported[0] > 0) {
+            out.write('\n');
+        }
+        writer.close();
+        log.info("Exported {} orders", exported[0]);
+        return exported[0];
+    }
+
+    // Cart orders have no item of their own; their lines for the whole page come from one more query
+    private List<OrderSummary> withLines(List<OrderSummary> orders) {
+        List<Integer> cartOrderIds = orders.stream()
+                .filter(order -> order.getItemId() == null)
+                .map(OrderSummary::getId)
+                .toList();
+        if (cartOrderIds.isEmpty()) {
+            return orders;
+        }
+        Map<Integer, List<OrderLine>> lines = orderLineRepository.findByOrderIdIn(cartOrderIds).stream()
+                .collect(Collectors.groupingBy(OrderLine::getOrderId));
+        for (OrderSummary order : orders) {
+            if (order.getItemId() == null) {
+                order.setLines(OrderSummary.summarize(lines.getOrDefault(order.getId(), List.of())));
+            }
+        }
+        return orders;
+    }
+
+    private static String encode(LocalDateTime createdAt, Integer id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Integer.valueOf(raw.substring(separator + 1)));
+        } catch (Exception e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    private record Cursor(LocalDateTime createdAt, Integer id) {
+    }
+}
@@ -0,0 +1,76 @@
+package storeApplication.demo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import storeApplication.demo.dto.StockAllocation;
+import storeApplication.demo.model.Item;
+import storeApplication.demo.model.Order;
+import storeApplication.demo.model.enums.OrderStatus;
+import storeApplication.demo.repository.ItemRepository;
+import storeApplication.demo.repository.OrderRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Single-item orders: stock is taken with the conditional decrements of {@link StockReservationService},
+ * each committing on its own, then the order row and its order_allocation rows are written in one short
+ * transaction. A failed write releases the units again, as {@link HotSkuService} does for its flushes.
+ */
+@Slf4j
+@Service
+public class OrderPlacementService {
+
+    private final OrderRepository orderRepository;
+    private final ItemRepository itemRepository;
+    private final StockReservationService stockReservationService;
+    private final ProductCatalogCache productCatalogCache;
+    private final TransactionTemplate transactionTemplate;
+
+    public OrderPlacementService(OrderRepository orderRepository,
+                                 ItemRepository itemRepository,
+                                 StockReservationService stockReservationService,
+                                 ProductCatalogCache productCatalogCache,
+                                 PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.itemRepository = itemRepository;
+        this.stockReservationService = stockReservationService;
+        this.productCatalogCache = productCatalogCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public Order createOrder(Integer userId, Integer itemId, Integer quantity) {
+        if (itemId == null || quantity == null || quantity <= 0) {
+            throw new RuntimeException("An order needs an item and a positive quantity");
+        }
+        Item item = itemRepository.findById(itemId)
+                .orElseThrow(() -> new RuntimeException("Item not found: " + itemId));
+
+        // The conditional decrements commit on their own, before the order transaction opens, so no stock row
+        // stays locked while the order is written; if writing it fails, the units are put back
+        List<StockAllocation> allocations = stockReservationService.reserve(itemId, quantity);
+        Order order;
+        try {
+            order = transactionTemplate.execute(status -> {
+                Order created = new Order();
+                created.setUserId(userId);
+                created.setItemId(itemId);
+                created.setQuantity(quantity);
+                created.setPrice(item.getPrice());
+                created.setStatus(OrderStatus.PENDING);
+                created.setCreatedAt(LocalDateTime.now());
+                Order saved = orderRepository.save(created);
+
+                stockReservationService.recordAllocations(saved.getId(), allocations);
+                return saved;
+            });
+        } catch (RuntimeException e) {
+            stockReservationService.release(allocations);
+            throw e;
+        }
+        productCatalogCache.refreshItemStock(itemId);
+        return order;
+    }
+}
@@ -0,0 +1,165 @@
+package storeApplication.demo.service;
+
+import com.example.contracts.DeliveryStatusMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import storeApplication.demo.model.Order;
+import storeApplication.demo.model.OrderStatusView;
+import storeApplication.demo.repository.OrderRepository;
+import storeApplication.demo.repository.OrderStatusViewRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Read model behind GET /api/orders/{id}. Views are served from a bounded LRU, then from the
+ * order_status_view table (a primary-key read, no joins), and only built from the orders row when
+ * neither has them. Writers (the controllers and the AMQP listeners) refresh the view from the committed
+ * orders row after every state change; the short cache TTL bounds staleness when another instance made the change.
+ */
+@Slf4j
+@Service
+public class OrderStatusViewService {
+
+    private final OrderRepository orderRepository;
+    private final OrderStatusViewRepository viewRepository;
+    private final Counter hits;
+    private final Counter misses;
+    private final Map<Integer, CachedView> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(1024, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, CachedView> eldest) {
+                    return size() > maxEntries;
+                }
+            });
+
+    @Value("${orders.status-view.cache.max-entries:50000}")
+    private int maxEntries;
+
+    @Value("${orders.status-view.cache.ttl-ms:2000}")
+    private long ttlMs;
+
+    public OrderStatusViewService(OrderRepository orderRepository,
+                                  OrderStatusViewRepository viewRepository,
+                                  MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.viewRepository = viewRepository;
+        this.hits = meterRegistry.counter("orders.status-view.cache.hits");
+        this.misses = meterRegistry.counter("orders.status-view.cache.misses");
+    }
+
+    public Optional<OrderStatusView> get(Integer orderId) {
+        CachedView cached = cache.get(orderId);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt() < ttlMs) {
+            hits.increment();
+            return Optional.of(cached.view());
+        }
+        misses.increment();
+        Optional<OrderStatusView> view = viewRepository.findById(orderId);
+        if (view.isEmpty()) {
+            // Orders created before the read model existed are backfilled on first read
+            view = orderRepository.findStatusView(orderId);
+            view.ifPresent(this::saveQuietly);
+        }
+        view.ifPresent(this::remember);
+        return view;
+    }
+
+    /**
+     * Updates the view after the caller changed this order. The committed row is re-read rather than copied from
+     * the caller's Order: a listener may have moved the order on since that copy was loaded, and writing it over
+     * the listener's view would take the status back.
+     */
+    public OrderStatusView update(Order order) {
+        try {
+            Optional<OrderStatusView> view = refresh(order.getId());
+            if (view.isPresent()) {
+                return view.get();
+            }
+        } catch (Exception e) {
+            log.warn("Could not re-read order {} for its status view: {}", order.getId(), e.getMessage());
+        }
+        // Answered from the caller's copy but not stored, since it may be older than the view
+        cache.remove(order.getId());
+        return new OrderStatusView(order.getId(), order.getUserId(), order.getItemId(), order.getQuantity(),
+                order.getPrice(), order.getStatus(), order.getCreatedAt(), order.getDeliveryRequestSent());
+    }
+
+    /**
+     * Re-reads the order row after a change made elsewhere (e.g. by OrderService from a listener).
+     */
+    public Optional<OrderStatusView> refresh(Integer orderId) {
+        return orderRepository.findStatusView(orderId).map(this::saveQuietly);
+    }
+
+    public Optional<OrderStatusView> recordDelivery(DeliveryStatusMessage message) {
+        return orderRepository.findStatusView(message.orderId()).map(view -> {
+            OrderStatusView current = current(message.orderId());
+            Long eventTime = message.timestamp();
+            boolean newer = current == null || current.getDeliveryUpdatedAt() == null
+                    || eventTime == null || eventTime >= current.getDeliveryUpdatedAt();
+            if (newer) {
+                view.setDeliveryStatus(message.status() != null ? message.status().toUpperCase() : null);
+                view.setTrackingId(message.trackingId());
+                view.setDeliveryUpdatedAt(eventTime);
+            }
+            return saveQuietly(view);
+        });
+    }
+
+    /**
+     * Drops views whose orders were changed in bulk; they are rebuilt on the next read.
+     */
+    public void evict(Collection<Integer> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        orderIds.forEach(cache::remove);
+        viewRepository.deleteAllByIdInBatch(orderIds);
+    }
+
+    private OrderStatusView current(Integer orderId) {
+        CachedView cached = cache.get(orderId);
+        return cached != null ? cached.view() : viewRepository.findById(orderId).orElse(null);
+    }
+
+    // The read model must never fail the write that triggered it; a missing view is rebuilt on read
+    private OrderStatusView saveQuietly(OrderStatusView view) {
+        try {
+            store(view);
+            remember(view);
+        } catch (Exception e) {
+            log.warn("Could not update status view for order {}: {}", view.getId(), e.getMessage());
+            cache.remove(view.getId());
+        }
+        return view;
+    }
+
+    private OrderStatusView store(OrderStatusView view) {
+        if (view.getDeliveryStatus() == null) {
+            // Keep the delivery fields, which only come from delivery events
+            OrderStatusView current = current(view.getId());
+            if (current != null) {
+                view.setDeliveryStatus(current.getDeliveryStatus());
+                view.setTrackingId(current.getTrackingId());
+                view.setDeliveryUpdatedAt(current.getDeliveryUpdatedAt());
+            }
+        }
+        view.setUpdatedAt(LocalDateTime.now());
+        return viewRepository.save(view);
+    }
+
+    private void remember(OrderStatusView view) {
+        cache.put(view.getId(), new CachedView(view, System.currentTimeMillis()));
+    }
+
+    private record CachedView(OrderStatusView view, long loadedAt) {
+    }
+}
@@ -0,0 +1,153 @@
+package storeApplication.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import storeApplication.demo.model.OutboxMessage;
+import storeApplication.demo.repository.OutboxMessageRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox: locks a batch of unsent rows, publishes them on one channel, waits for the
+ * broker to confirm the whole batch, then marks them sent with a single update. A failed confirm
+ * rolls the batch back so it is sent again; delivery is at-least-once, and each message carries
+ * its outbox id as message id for consumers that deduplicate. Confirms are correlated, so other
+ * publishers on the same connection factory are not made to wait for theirs.
+ */
+@Slf4j
+@Service
+public class OutboxRelay {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter published;
+    private final Counter failedBatches;
+    private final Timer batchTimer;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    @Value("${outbox.relay.batch-size:200}")
+    private int batchSize;
+
+    @Value("${outbox.relay.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    @Value("${outbox.retention-hours:24}")
+    private long retentionHours;
+
+    public OutboxRelay(OutboxMessageRepository outboxMessageRepository,
+                       RabbitTemplate rabbitTemplate,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.published = meterRegistry.counter("outbox.relay.published");
+        this.failedBatches = meterRegistry.counter("outbox.relay.failed.batches");
+        this.batchTimer = Timer.builder("outbox.relay.batch")
+                .description("Publish and confirm time of one outbox batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("outbox.lag", lagSeconds, AtomicLong::get)
+                .description("Age in seconds of the oldest unsent outbox message")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-ms:200}")
+    public void relay() {
+        try {
+            int sent;
+            do {
+                sent = batchTimer.record(() -> transactionTemplate.execute(status -> relayBatch()));
+                published.increment(sent);
+            } while (sent == batchSize);
+        } catch (RuntimeException e) {
+            failedBatches.increment();
+            log.warn("Outbox batch not confirmed, will resend: {}", e.getMessage());
+        }
+        lagSeconds.set(outboxMessageRepository.findOldestUnsent()
+                .map(oldest -> Duration.between(oldest, LocalDateTime.now()).getSeconds())
+                .orElse(0L));
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.cleanup-interval-ms:600000}")
+    public void purgeSent() {
+        int purged = outboxMessageRepository.deleteSentBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (purged > 0) {
+            log.info("Purged {} sent outbox messages", purged);
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxMessage> batch = outboxMessageRepository.lockUnsent(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<CorrelationData> confirms = rabbitTemplate.invoke(operations -> {
+            List<CorrelationData> sent = new ArrayList<>(batch.size());
+            for (OutboxMessage message : batch) {
+                CorrelationData correlation = new CorrelationData("outbox-" + message.getId());
+                operations.send(message.getExchange(), message.getRoutingKey(), toAmqpMessage(message), correlation);
+                sent.add(correlation);
+            }
+            return sent;
+        });
+        awaitConfirms(confirms);
+        outboxMessageRepository.markSent(batch.stream().map(OutboxMessage::getId).toList(), LocalDateTime.now());
+        return batch.size();
+    }
+
+    private void awaitConfirms(List<CorrelationData> confirms) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+        try {
+            for (CorrelationData correlation : confirms) {
+                CorrelationData.Confirm confirm = correlation.getFuture()
+                        .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (!confirm.isAck()) {
+                    throw new AmqpException("Broker refused " + correlation.getId() + ": " + confirm.getReason());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("Interrupted while waiting for outbox confirms", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new AmqpException("No confirm for outbox batch", e);
+        }
+    }
+
+    private static Message toAmqpMessage(OutboxMessage message) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setContentEncoding(StandardCharsets.UTF_8.name());
+        properties.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        properties.setMessageId("outbox-" + message.getId());
+        if (message.getTypeId() != null) {
+            properties.setHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME, message.getTypeId());
+        }
+        return new Message(message.getPayload().getBytes(StandardCharsets.UTF_8), properties);
+    }
+}
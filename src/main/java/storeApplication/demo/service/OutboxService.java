@@ -0,0 +1,40 @@
+package storeApplication.demo.service;
+
+import com.example.contracts.codec.ContractMessageConverter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractJavaTypeMapper;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import storeApplication.demo.model.OutboxMessage;
+import storeApplication.demo.repository.OutboxMessageRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Every store to broker publish goes through here instead of RabbitTemplate. Called inside the
+ * transaction of the order change, the message commits or rolls back with it; {@link OutboxRelay}
+ * sends it afterwards, so request latency no longer includes the broker.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    // Rows hold JSON text whatever messaging.codec says; every consumer accepts JSON
+    private final MessageConverter messageConverter =
+            ContractMessageConverter.json(new Jackson2JsonMessageConverter());
+
+    @Transactional
+    public OutboxMessage enqueue(String exchange, String routingKey, Object payload) {
+        // Same encoding and type header as a direct JSON publish
+        Message message = messageConverter.toMessage(payload, new MessageProperties());
+        String typeId = message.getMessageProperties().getHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME);
+        return outboxMessageRepository.save(new OutboxMessage(null, exchange, routingKey, typeId,
+                new String(message.getBody(), StandardCharsets.UTF_8), LocalDateTime.now(), null));
+    }
+}
@@ -0,0 +1,119 @@
+package storeApplication.demo.service;
+
+import com.example.contracts.PaymentRequestMessage;
+import com.example.contracts.PaymentResponseMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.scheduler.Schedulers;
+import storeApplication.demo.config.RabbitMQConfig;
+import storeApplication.demo.model.Order;
+import storeApplication.demo.model.Payment;
+import storeApplication.demo.model.enums.OrderStatus;
+import storeApplication.demo.model.enums.PaymentStatus;
+import storeApplication.demo.repository.OrderRepository;
+import storeApplication.demo.repository.PaymentRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The pay step. The payment row is written first, marking the payment as in flight. With {@code payments.mode=rest}
+ * the request is then handed to {@link BankClient} without waiting for it, so the caller gets the PENDING order at
+ * once and no request thread is parked on the bank; otherwise it is put in the outbox in the same transaction.
+ * Either way the outcome is applied by PaymentResponseListener, since the bank publishes every outcome
+ * on payment.response.
+ */
+@Slf4j
+@Service
+public class PaymentSubmissionService {
+
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final PaymentRepository paymentRepository;
+    private final BankClient bankClient;
+    private final OutboxService outboxService;
+    private final OrderStatusViewService orderStatusViewService;
+    private final OrderEventHub orderEventHub;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${payments.mode:rest}")
+    private String mode;
+
+    // Account the bank credits
+    @Value("${payments.store-account}")
+    private String storeAccount;
+
+    public PaymentSubmissionService(OrderService orderService,
+                                    OrderRepository orderRepository,
+                                    PaymentRepository paymentRepository,
+                                    BankClient bankClient,
+                                    OutboxService outboxService,
+                                    OrderStatusViewService orderStatusViewService,
+                                    OrderEventHub orderEventHub,
+                                    PlatformTransactionManager transactionManager) {
+        this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.paymentRepository = paymentRepository;
+        this.bankClient = bankClient;
+        this.outboxService = outboxService;
+        this.orderStatusViewService = orderStatusViewService;
+        this.orderEventHub = orderEventHub;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public Order processPayment(Integer orderId) {
+        boolean rest = "rest".equals(mode);
+        PaymentRequestMessage request = transactionTemplate.execute(status -> {
+            Order order = orderRepository.findById(orderId)
+                    .orElseThrow(() -> new RuntimeException("Order not found: " + orderId));
+            if (order.getStatus() != OrderStatus.PENDING) {
+                throw new RuntimeException("Order " + orderId + " is not awaiting payment");
+            }
+            if (paymentRepository.existsByOrderIdAndCompletedAtIsNull(orderId)) {
+                throw new RuntimeException("Payment of order " + orderId + " is already in progress");
+            }
+            Payment payment = new Payment();
+            payment.setOrderId(orderId);
+            payment.setStatus(PaymentStatus.PENDING);
+            payment.setRequestedAt(LocalDateTime.now());
+            payment.setType("PAYMENT");
+            Integer paymentId = paymentRepository.save(payment).getId();
+            PaymentRequestMessage message = new PaymentRequestMessage(orderId, order.getUser().getBankAccountNumber(),
+                    storeAccount, amount(order).doubleValue(), "payment-" + paymentId);
+            if (!rest) {
+                outboxService.enqueue(RabbitMQConfig.BANK_EXCHANGE, RabbitMQConfig.PAYMENT_REQUEST_ROUTING_KEY, message);
+            }
+            return message;
+        });
+        if (!rest) {
+            return orderRepository.findById(orderId).orElseThrow();
+        }
+
+        // Bank answers arrive on Netty threads; the failure path writes to the database, so it runs elsewhere
+        bankClient.submitPayment(request)
+                .publishOn(Schedulers.boundedElastic())
+                .subscribe(response -> onBankAnswer(orderId, response),
+                        error -> log.error("Payment of order {} could not be handed to the bank: {}",
+                                orderId, error.getMessage()));
+        return orderRepository.findById(orderId).orElseThrow();
+    }
+
+    private void onBankAnswer(Integer orderId, PaymentResponseMessage response) {
+        log.info("Payment of order {} handed to the bank: {}", orderId, response.status());
+        if (BankClient.REJECTED.equals(response.status())) {
+            // Nothing will arrive on payment.response for a refused request
+            transactionTemplate.executeWithoutResult(status -> orderService.handlePaymentFailure(orderId));
+            orderStatusViewService.refresh(orderId).ifPresent(orderEventHub::publish);
+        }
+    }
+
+    // Cart orders carry the cart total as their price, single-item orders the unit price
+    private static BigDecimal amount(Order order) {
+        return order.getQuantity() != null
+                ? order.getPrice().multiply(BigDecimal.valueOf(order.getQuantity()))
+                : order.getPrice();
+    }
+}
@@ -0,0 +1,157 @@
+package storeApplication.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import storeApplication.demo.dto.ProductResponse;
+import storeApplication.demo.repository.WarehouseStockRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Immutable, pre-aggregated snapshot of the product catalog served by GET /api/products.
+ * The snapshot is rebuilt by a single thread once it is older than the staleness bound
+ * (other readers keep getting the previous copy meanwhile) and is patched per item when stock changes.
+ * Invalidation bumps a generation instead of touching the snapshot, so it cannot be lost to a rebuild
+ * or a patch that is publishing at the same moment: a snapshot from an older generation is always stale.
+ */
+@Slf4j
+@Component
+public class ProductCatalogCache {
+
+    private final ItemService itemService;
+    private final WarehouseStockRepository warehouseStockRepository;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer rebuildTimer;
+
+    @Value("${catalog.cache.max-staleness-ms:30000}")
+    private long maxStalenessMs;
+
+    private volatile Snapshot snapshot;
+
+    public ProductCatalogCache(ItemService itemService,
+                               WarehouseStockRepository warehouseStockRepository,
+                               MeterRegistry meterRegistry) {
+        this.itemService = itemService;
+        this.warehouseStockRepository = warehouseStockRepository;
+        this.hits = meterRegistry.counter("catalog.cache.hits");
+        this.misses = meterRegistry.counter("catalog.cache.misses");
+        this.rebuildTimer = Timer.builder("catalog.cache.rebuild")
+                .description("Time spent rebuilding the product catalog snapshot")
+                .register(meterRegistry);
+    }
+
+    public List<ProductResponse> getProducts() {
+        Snapshot current = snapshot;
+        if (isFresh(current)) {
+            hits.increment();
+            return current.products();
+        }
+        misses.increment();
+        return rebuild(current).products();
+    }
+
+    /**
+     * Forces the next read to rebuild the snapshot, e.g. after a new item was created.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Re-reads the aggregated stock of a single item and patches it into the snapshot
+     * without rebuilding the rest of the catalog.
+     */
+    public void refreshItemStock(Integer itemId) {
+        if (itemId == null || snapshot == null) {
+            return;
+        }
+        int stock = warehouseStockRepository.sumQuantityByItemId(itemId).intValue();
+        rebuildLock.lock();
+        try {
+            Snapshot current = snapshot;
+            if (current == null) {
+                return;
+            }
+            Snapshot patched = current.withStock(itemId, stock);
+            if (patched == null) {
+                log.debug("Item {} not in catalog snapshot, invalidating", itemId);
+                snapshot = current.expired();
+            } else {
+                snapshot = patched;
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private Snapshot rebuild(Snapshot seen) {
+        if (seen == null) {
+            // Nothing to serve yet, so every caller has to wait for the first build
+            rebuildLock.lock();
+        } else if (!rebuildLock.tryLock()) {
+            // Another thread is already rebuilding; serve the stale copy instead of piling up
+            return seen;
+        }
+        try {
+            Snapshot current = snapshot;
+            if (current != seen && isFresh(current)) {
+                return current;
+            }
+            // Read before loading, so an invalidation during the load leaves the result stale
+            long building = generation.get();
+            Snapshot fresh = rebuildTimer.record(() -> Snapshot.of(itemService.getAllProducts(), building));
+            snapshot = fresh;
+            log.debug("Product catalog snapshot rebuilt with {} products", fresh.products().size());
+            return fresh;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private boolean isFresh(Snapshot current) {
+        return current != null && current.generation() == generation.get() && !current.isStale(maxStalenessMs);
+    }
+
+    private record Snapshot(List<ProductResponse> products, Map<Integer, Integer> positions, long builtAt,
+                            long generation) {
+
+        static Snapshot of(List<ProductResponse> products, long generation) {
+            Map<Integer, Integer> positions = new HashMap<>();
+            for (int i = 0; i < products.size(); i++) {
+                positions.put(products.get(i).getId(), i);
+            }
+            return new Snapshot(List.copyOf(products), Map.copyOf(positions), System.currentTimeMillis(), generation);
+        }
+
+        boolean isStale(long maxStalenessMs) {
+            return System.currentTimeMillis() - builtAt > maxStalenessMs;
+        }
+
+        Snapshot expired() {
+            return new Snapshot(products, positions, 0L, generation);
+        }
+
+        Snapshot withStock(Integer itemId, int stock) {
+            Integer position = positions.get(itemId);
+            if (position == null) {
+                return null;
+            }
+            ProductResponse old = products.get(position);
+            List<ProductResponse> copy = new ArrayList<>(products);
+            copy.set(position, new ProductResponse(old.getId(), old.getName(), old.getPrice(), stock, old.getImageUrl()));
+            return new Snapshot(List.copyOf(copy), positions, builtAt, generation);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package storeApplication.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import storeApplication.demo.dto.StockAllocation;
+import storeApplication.demo.model.enums.OrderStatus;
+import storeApplication.demo.repository.OrderAllocationRepository;
+import storeApplication.demo.repository.OrderLineRepository;
+import storeApplication.demo.repository.OrderRepository;
+import storeApplication.demo.repository.WarehouseStockRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cancels unpaid orders older than the reservation TTL and returns their allocated stock.
+ * Orders with a payment request still waiting for the bank's answer are skipped until it arrives, or until
+ * the much longer stuck-payment TTL has passed since the request: by then the answer is taken to be lost,
+ * and the order is cancelled rather than holding its stock for good. Candidates come from the
+ * (status, created_at) index in pages, and each page is released in a single transaction.
+ */
+@Slf4j
+@Service
+public class ReservationExpiryService {
+
+    private final OrderRepository orderRepository;
+    private final OrderAllocationRepository orderAllocationRepository;
+    private final OrderLineRepository orderLineRepository;
+    private final WarehouseStockRepository warehouseStockRepository;
+    private final ProductCatalogCache productCatalogCache;
+    private final HotSkuService hotSkuService;
+    private final WarehouseStockIndex stockIndex;
+    private final OrderStatusViewService orderStatusViewService;
+    private final OrderEventHub orderEventHub;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter expired;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    @Value("${orders.reservation.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    // Far beyond any bank or retry-queue delay, so a payment that is merely slow is never expired
+    @Value("${orders.reservation.stuck-payment-ttl-minutes:1440}")
+    private long stuckPaymentTtlMinutes;
+
+    @Value("${orders.reservation.expiry-batch-size:200}")
+    private int batchSize;
+
+    public ReservationExpiryService(OrderRepository orderRepository,
+                                    OrderAllocationRepository orderAllocationRepository,
+                                    OrderLineRepository orderLineRepository,
+                                    WarehouseStockRepository warehouseStockRepository,
+                                    ProductCatalogCache productCatalogCache,
+                                    HotSkuService hotSkuService,
+                                    WarehouseStockIndex stockIndex,
+                                    OrderStatusViewService orderStatusViewService,
+                                    OrderEventHub orderEventHub,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.orderAllocationRepository = orderAllocationRepository;
+        this.orderLineRepository = orderLineRepository;
+        this.warehouseStockRepository = warehouseStockRepository;
+        this.productCatalogCache = productCatalogCache;
+        this.hotSkuService = hotSkuService;
+        this.stockIndex = stockIndex;
+        this.orderStatusViewService = orderStatusViewService;
+        this.orderEventHub = orderEventHub;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.expired = meterRegistry.counter("orders.reservation.expired");
+        Gauge.builder("orders.reservation.expiry.lag", lagSeconds, AtomicLong::get)
+                .description("Seconds the oldest unpaid order has been past its TTL")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${orders.reservation.expiry-interval-ms:60000}")
+    public void expireReservations() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minusMinutes(ttlMinutes);
+        LocalDateTime paymentCutoff = now.minusMinutes(stuckPaymentTtlMinutes);
+        lagSeconds.set(orderRepository.findOldestCreatedBefore(OrderStatus.PENDING, cutoff, paymentCutoff)
+                .map(oldest -> Duration.between(oldest, cutoff).getSeconds())
+                .orElse(0L));
+
+        int total = 0;
+        Set<Integer> touchedItems = new HashSet<>();
+        while (true) {
+            List<Integer> ids = orderRepository.findIdsCreatedBefore(
+                    OrderStatus.PENDING, cutoff, paymentCutoff, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<Integer> cancelled = new ArrayList<>();
+            List<StockAllocation> released = transactionTemplate.execute(
+                    status -> releaseBatch(ids, paymentCutoff, cancelled));
+            released.forEach(allocation -> touchedItems.add(allocation.getItemId()));
+            // Open order streams end on the CANCELLED event
+            cancelled.forEach(id -> orderStatusViewService.refresh(id).ifPresent(orderEventHub::publish));
+            total += cancelled.size();
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            expired.increment(total);
+            lagSeconds.set(0);
+            touchedItems.forEach(itemId -> {
+                stockIndex.reload(itemId);
+                hotSkuService.reload(itemId);
+                productCatalogCache.refreshItemStock(itemId);
+            });
+            log.info("Expired {} unpaid orders older than {} minutes", total, ttlMinutes);
+        }
+    }
+
+    private List<StockAllocation> releaseBatch(List<Integer> ids, LocalDateTime paymentCutoff,
+                                               List<Integer> cancelled) {
+        // Conditional transition: an order paid, cancelled or sent for payment since the page was read is left alone,
+        // so a payment success can only arrive for an order whose stock was already released if it was stuck
+        // past the stuck-payment TTL
+        for (Integer id : ids) {
+            if (orderRepository.transitionStatusUnlessPaying(id, OrderStatus.PENDING, OrderStatus.CANCELLED,
+                    paymentCutoff) == 1) {
+                cancelled.add(id);
+            }
+        }
+        if (cancelled.isEmpty()) {
+            return List.of();
+        }
+
+        // Single-item orders hold order_allocation rows, cart orders hold per-warehouse order_lines
+        List<StockAllocation> allocations = new ArrayList<>(orderAllocationRepository.findStockByOrderIds(cancelled));
+        allocations.addAll(orderLineRepository.findStockByOrderIds(cancelled));
+        Map<List<Integer>, Integer> byItemAndWarehouse = new LinkedHashMap<>();
+        for (StockAllocation allocation : allocations) {
+            byItemAndWarehouse.merge(List.of(allocation.getItemId(), allocation.getWarehouseId()),
+                    allocation.getQuantity(), Integer::sum);
+        }
+        byItemAndWarehouse.forEach((key, quantity) ->
+                warehouseStockRepository.increment(key.get(0), key.get(1), quantity));
+        orderAllocationRepository.deleteByOrderIds(cancelled);
+        return allocations;
+    }
+}
@@ -0,0 +1,124 @@
+package storeApplication.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import storeApplication.demo.dto.StockAllocation;
+import storeApplication.demo.model.OrderAllocation;
+import storeApplication.demo.model.OrderAllocationId;
+import storeApplication.demo.repository.OrderAllocationRepository;
+import storeApplication.demo.repository.WarehouseStockRepository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reserves stock with conditional atomic decrements ({@code quantity >= ?}) instead of a
+ * read-modify-write inside one long order transaction. Each decrement commits on its own,
+ * so concurrent buyers of the same item never block each other on row locks and can never oversell.
+ * Which warehouses to try is decided by the configured {@link AllocationStrategy}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockReservationService {
+
+    private final WarehouseStockRepository warehouseStockRepository;
+    private final OrderAllocationRepository orderAllocationRepository;
+    private final AllocationStrategy allocationStrategy;
+    private final WarehouseStockIndex stockIndex;
+
+    @Value("${orders.reservation.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    /**
+     * Reserves {@code quantity} units of an item, spreading them over warehouses as needed.
+     * Either the full quantity is reserved or nothing is (partial reservations are released).
+     */
+    public List<StockAllocation> reserve(Integer itemId, int quantity) {
+        return reserve(Map.of(itemId, quantity));
+    }
+
+    /**
+     * Reserves every line (itemId to quantity) of an order, all or nothing.
+     */
+    public List<StockAllocation> reserve(Map<Integer, Integer> lines) {
+        lines.values().forEach(quantity -> {
+            if (quantity == null || quantity <= 0) {
+                throw new RuntimeException("Quantity must be positive");
+            }
+        });
+
+        Map<Integer, Integer> remaining = new LinkedHashMap<>(lines);
+        Map<List<Integer>, Integer> taken = new LinkedHashMap<>();
+
+        for (int attempt = 0; attempt < maxAttempts && !remaining.isEmpty(); attempt++) {
+            for (StockAllocation planned : allocationStrategy.plan(remaining)) {
+                Integer itemId = planned.getItemId();
+                int wanted = Math.min(planned.getQuantity(), remaining.getOrDefault(itemId, 0));
+                if (wanted == 0) {
+                    continue;
+                }
+                int got = takeFromWarehouse(itemId, planned.getWarehouseId(), wanted);
+                if (got > 0) {
+                    taken.merge(List.of(itemId, planned.getWarehouseId()), got, Integer::sum);
+                    remaining.computeIfPresent(itemId, (id, left) -> left == got ? null : left - got);
+                }
+            }
+            // Whatever is still missing was planned from stale index entries; re-read those items
+            remaining.keySet().forEach(stockIndex::reload);
+        }
+
+        List<StockAllocation> allocations = new ArrayList<>();
+        taken.forEach((key, quantity) -> allocations.add(new StockAllocation(key.get(0), key.get(1), quantity)));
+        if (!remaining.isEmpty()) {
+            release(allocations);
+            throw new RuntimeException("Insufficient stock for item: " + remaining.keySet().iterator().next());
+        }
+        return allocations;
+    }
+
+    /**
+     * Returns previously reserved units to their warehouses.
+     */
+    public void release(List<StockAllocation> allocations) {
+        for (StockAllocation allocation : allocations) {
+            warehouseStockRepository.increment(
+                    allocation.getItemId(), allocation.getWarehouseId(), allocation.getQuantity());
+            stockIndex.adjust(allocation.getItemId(), allocation.getWarehouseId(), allocation.getQuantity());
+        }
+    }
+
+    /**
+     * Persists the OrderAllocation rows for units reserved on behalf of an order.
+     */
+    public void recordAllocations(Integer orderId, List<StockAllocation> allocations) {
+        List<OrderAllocation> rows = new ArrayList<>();
+        for (StockAllocation allocation : allocations) {
+            OrderAllocation row = new OrderAllocation();
+            row.setId(new OrderAllocationId(orderId, allocation.getWarehouseId()));
+            row.setQuantity(allocation.getQuantity());
+            rows.add(row);
+        }
+        orderAllocationRepository.saveAll(rows);
+    }
+
+    // Tries to take up to `wanted` units from one warehouse, re-reading its level when another buyer got there first
+    private int takeFromWarehouse(Integer itemId, Integer warehouseId, int wanted) {
+        int amount = wanted;
+        for (int attempt = 0; attempt < maxAttempts && amount > 0; attempt++) {
+            if (warehouseStockRepository.decrementIfAvailable(itemId, warehouseId, amount) == 1) {
+                stockIndex.adjust(itemId, warehouseId, -amount);
+                return amount;
+            }
+            int available = warehouseStockRepository.findQuantity(itemId, warehouseId).orElse(0);
+            stockIndex.set(itemId, warehouseId, available);
+            log.debug("Stock of item {} in warehouse {} changed concurrently, {} left", itemId, warehouseId, available);
+            amount = Math.min(available, wanted);
+        }
+        return 0;
+    }
+}
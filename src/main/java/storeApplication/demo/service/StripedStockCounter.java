@@ -0,0 +1,105 @@
+package storeApplication.demo.service;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Available units of one hot item split over several CAS counters, so concurrent buyers
+ * mostly hit different stripes instead of a single contended value.
+ */
+final class StripedStockCounter {
+
+    private final AtomicIntegerArray stripes;
+    private final int mask;
+    private volatile boolean soldOut;
+
+    StripedStockCounter(int units, int parallelism) {
+        int size = Integer.highestOneBit(Math.max(1, parallelism - 1)) << 1;
+        this.stripes = new AtomicIntegerArray(size);
+        this.mask = size - 1;
+        reset(units);
+    }
+
+    boolean isSoldOut() {
+        return soldOut;
+    }
+
+    boolean tryClaim(int quantity) {
+        if (soldOut) {
+            return false;
+        }
+        int start = home();
+        for (int i = 0; i <= mask; i++) {
+            if (tryTake((start + i) & mask, quantity)) {
+                return true;
+            }
+        }
+        return gather(start, quantity);
+    }
+
+    void release(int quantity) {
+        stripes.addAndGet(home(), quantity);
+        soldOut = false;
+    }
+
+    int remaining() {
+        int total = 0;
+        for (int i = 0; i < stripes.length(); i++) {
+            total += stripes.get(i);
+        }
+        return total;
+    }
+
+    void reset(int units) {
+        int size = stripes.length();
+        for (int i = 0; i < size; i++) {
+            stripes.set(i, units / size + (i < units % size ? 1 : 0));
+        }
+        soldOut = units <= 0;
+    }
+
+    private boolean tryTake(int index, int quantity) {
+        while (true) {
+            int current = stripes.get(index);
+            if (current < quantity) {
+                return false;
+            }
+            if (stripes.compareAndSet(index, current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+
+    // Slow path when no single stripe holds enough: collect from all stripes, give back on shortfall
+    private boolean gather(int start, int quantity) {
+        int[] taken = new int[stripes.length()];
+        int gathered = 0;
+        for (int i = 0; i <= mask && gathered < quantity; i++) {
+            int index = (start + i) & mask;
+            while (true) {
+                int current = stripes.get(index);
+                int amount = Math.min(current, quantity - gathered);
+                if (amount <= 0 || stripes.compareAndSet(index, current, current - amount)) {
+                    taken[index] = Math.max(amount, 0);
+                    gathered += taken[index];
+                    break;
+                }
+            }
+        }
+        if (gathered == quantity) {
+            return true;
+        }
+        for (int i = 0; i < taken.length; i++) {
+            if (taken[i] > 0) {
+                stripes.addAndGet(i, taken[i]);
+            }
+        }
+        if (remaining() == 0) {
+            soldOut = true;
+        }
+        return false;
+    }
+
+    private int home() {
+        return (int) Thread.currentThread().getId() & mask;
+    }
+}
@@ -0,0 +1,197 @@
+package storeApplication.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import storeApplication.demo.dto.AddItemToWarehouseRequest;
+import storeApplication.demo.dto.StockImportReport;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams a CSV ({@code itemId,warehouseId,quantity}) or NDJSON restock file into warehouse_stock,
+ * upserting rows in large JDBC batches. A failing batch is retried row by row so a bad row is
+ * reported instead of aborting the whole load.
+ * <p>
+ * Quantities are absolute stock levels, as from a stock count, and replace the row's quantity. Units reserved
+ * from a row between the count and its import are therefore counted as available again; load counts taken
+ * while the warehouses were not selling, or send changes through POST /api/warehouse-stocks instead.
+ * Batches commit as they go: if the upload breaks off, the rows before the break stay written and the
+ * report says how far the load got.
+ */
+@Slf4j
+@Service
+public class WarehouseStockImportService {
+
+    private static final String POSTGRES_UPSERT =
+            "INSERT INTO warehouse_stock (item_id, warehouse_id, quantity) VALUES (?, ?, ?) " +
+            "ON CONFLICT (item_id, warehouse_id) DO UPDATE SET quantity = EXCLUDED.quantity";
+    private static final String H2_UPSERT =
+            "MERGE INTO warehouse_stock (item_id, warehouse_id, quantity) KEY (item_id, warehouse_id) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ProductCatalogCache productCatalogCache;
+    private final WarehouseStockIndex stockIndex;
+    private final HotSkuService hotSkuService;
+    private final String upsertSql;
+
+    @Value("${warehouse-stock.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${warehouse-stock.import.max-reported-errors:100}")
+    private int maxReportedErrors;
+
+    public WarehouseStockImportService(DataSource dataSource,
+                                       PlatformTransactionManager transactionManager,
+                                       ObjectMapper objectMapper,
+                                       ProductCatalogCache productCatalogCache,
+                                       WarehouseStockIndex stockIndex,
+                                       HotSkuService hotSkuService) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.productCatalogCache = productCatalogCache;
+        this.stockIndex = stockIndex;
+        this.hotSkuService = hotSkuService;
+        this.upsertSql = upsertSqlFor(dataSource);
+    }
+
+    public StockImportReport importStock(InputStream input, boolean ndjson) {
+        long started = System.currentTimeMillis();
+        Progress progress = new Progress();
+        List<Row> batch = new ArrayList<>(batchSize);
+        String abortedReason = null;
+
+        long lineNumber = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (!ndjson && lineNumber == 1 && isCsvHeader(line))) {
+                    continue;
+                }
+                progress.read++;
+                try {
+                    batch.add(ndjson ? parseJson(lineNumber, line) : parseCsv(lineNumber, line));
+                } catch (Exception e) {
+                    progress.fail(lineNumber, "unparseable row: " + e.getMessage(), maxReportedErrors);
+                }
+                if (batch.size() == batchSize) {
+                    writeBatch(batch, progress);
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            // Earlier batches are committed; the whole lines read so far are still written below
+            abortedReason = "upload broke off after line " + lineNumber + ": " + e.getMessage();
+            log.warn("Warehouse stock import aborted: {}", abortedReason);
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch, progress);
+        }
+
+        // Every cached view of stock is stale after a bulk load
+        stockIndex.clear();
+        hotSkuService.reloadAll();
+        productCatalogCache.invalidate();
+
+        long elapsed = Math.max(1, System.currentTimeMillis() - started);
+        double rowsPerSecond = progress.upserted * 1000.0 / elapsed;
+        log.info("Warehouse stock import finished: {} read, {} upserted, {} failed in {} ms ({} rows/s)",
+                progress.read, progress.upserted, progress.failed, elapsed, Math.round(rowsPerSecond));
+        return new StockImportReport(progress.read, progress.upserted, progress.failed,
+                elapsed, rowsPerSecond, progress.errors, abortedReason);
+    }
+
+    private void writeBatch(List<Row> batch, Progress progress) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(upsertSql, batch, batch.size(),
+                    (ps, row) -> {
+                        ps.setInt(1, row.itemId());
+                        ps.setInt(2, row.warehouseId());
+                        ps.setInt(3, row.quantity());
+                    }));
+            progress.upserted += batch.size();
+        } catch (Exception batchFailure) {
+            log.warn("Batch of {} rows failed ({}), retrying row by row", batch.size(), batchFailure.getMessage());
+            for (Row row : batch) {
+                try {
+                    jdbcTemplate.update(upsertSql, row.itemId(), row.warehouseId(), row.quantity());
+                    progress.upserted++;
+                } catch (Exception rowFailure) {
+                    progress.fail(row.lineNumber(), rowFailure.getMessage(), maxReportedErrors);
+                }
+            }
+        }
+    }
+
+    private Row parseCsv(long lineNumber, String line) {
+        String[] columns = line.split(",");
+        if (columns.length != 3) {
+            throw new IllegalArgumentException("expected itemId,warehouseId,quantity");
+        }
+        return row(lineNumber, Integer.valueOf(columns[0].trim()), Integer.valueOf(columns[1].trim()),
+                Integer.valueOf(columns[2].trim()));
+    }
+
+    private Row parseJson(long lineNumber, String line) throws IOException {
+        AddItemToWarehouseRequest request = objectMapper.readValue(line, AddItemToWarehouseRequest.class);
+        return row(lineNumber, request.getItemId(), request.getWarehouseId(), request.getQuantity());
+    }
+
+    private static Row row(long lineNumber, Integer itemId, Integer warehouseId, Integer quantity) {
+        if (itemId == null || warehouseId == null || quantity == null) {
+            throw new IllegalArgumentException("itemId, warehouseId and quantity are required");
+        }
+        if (quantity < 0) {
+            throw new IllegalArgumentException("quantity must not be negative");
+        }
+        return new Row(lineNumber, itemId, warehouseId, quantity);
+    }
+
+    private static boolean isCsvHeader(String line) {
+        return !Character.isDigit(line.trim().charAt(0));
+    }
+
+    private static String upsertSqlFor(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return "H2".equalsIgnoreCase(product) ? H2_UPSERT : POSTGRES_UPSERT;
+        } catch (Exception e) {
+            log.warn("Could not detect database product, assuming PostgreSQL: {}", e.getMessage());
+            return POSTGRES_UPSERT;
+        }
+    }
+
+    private record Row(long lineNumber, int itemId, int warehouseId, int quantity) {
+    }
+
+    private static final class Progress {
+        private long read;
+        private long upserted;
+        private long failed;
+        private final List<String> errors = new ArrayList<>();
+
+        void fail(long lineNumber, String reason, int maxReported) {
+            failed++;
+            if (errors.size() < maxReported) {
+                errors.add("line " + lineNumber + ": " + reason);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package storeApplication.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import storeApplication.demo.dto.StockAllocation;
+import storeApplication.demo.repository.WarehouseStockRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory per-item priority index of warehouse stock (most stock first), so allocation
+ * strategies can plan an order without querying warehouse_stock. It is advisory only: the
+ * conditional decrements in {@link StockReservationService} stay authoritative and reload an
+ * item whenever the index turns out to be stale.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WarehouseStockIndex {
+
+    private final WarehouseStockRepository warehouseStockRepository;
+    private final Map<Integer, ItemLevels> items = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        List<StockAllocation> levels = warehouseStockRepository.findAllAvailable();
+        load(levels);
+        log.info("Warehouse stock index loaded with {} stock rows for {} items", levels.size(), items.size());
+    }
+
+    public void load(List<StockAllocation> levels) {
+        Map<Integer, ItemLevels> loaded = new HashMap<>();
+        for (StockAllocation level : levels) {
+            loaded.computeIfAbsent(level.getItemId(), id -> new ItemLevels())
+                    .set(level.getWarehouseId(), level.getQuantity());
+        }
+        items.putAll(loaded);
+    }
+
+    /**
+     * Current levels of an item with stock, largest first.
+     */
+    public List<StockAllocation> levels(Integer itemId) {
+        return items.computeIfAbsent(itemId, this::loadItem).snapshot(itemId);
+    }
+
+    public void adjust(Integer itemId, Integer warehouseId, int delta) {
+        ItemLevels levels = items.get(itemId);
+        if (levels != null) {
+            levels.adjust(warehouseId, delta);
+        }
+    }
+
+    public void set(Integer itemId, Integer warehouseId, int quantity) {
+        ItemLevels levels = items.get(itemId);
+        if (levels != null) {
+            levels.set(warehouseId, quantity);
+        }
+    }
+
+    /**
+     * Drops an item so its levels are re-read from the database on next use.
+     */
+    public void reload(Integer itemId) {
+        if (itemId != null) {
+            items.remove(itemId);
+        }
+    }
+
+    public void clear() {
+        items.clear();
+    }
+
+    private ItemLevels loadItem(Integer itemId) {
+        ItemLevels levels = new ItemLevels();
+        warehouseStockRepository.findAvailableByItemId(itemId)
+                .forEach(level -> levels.set(level.getWarehouseId(), level.getQuantity()));
+        return levels;
+    }
+
+    private static final class ItemLevels {
+        private final Map<Integer, Level> byWarehouse = new HashMap<>();
+        private final TreeSet<Level> ordered = new TreeSet<>(
+                Comparator.comparingInt(Level::quantity).reversed().thenComparingInt(Level::warehouseId));
+
+        synchronized void set(int warehouseId, int quantity) {
+            Level previous = byWarehouse.remove(warehouseId);
+            if (previous != null) {
+                ordered.remove(previous);
+            }
+            if (quantity > 0) {
+                Level level = new Level(warehouseId, quantity);
+                byWarehouse.put(warehouseId, level);
+                ordered.add(level);
+            }
+        }
+
+        synchronized void adjust(int warehouseId, int delta) {
+            Level previous = byWarehouse.get(warehouseId);
+            set(warehouseId, (previous != null ? previous.quantity() : 0) + delta);
+        }
+
+        synchronized List<StockAllocation> snapshot(Integer itemId) {
+            List<StockAllocation> levels = new ArrayList<>(ordered.size());
+            for (Level level : ordered) {
+                levels.add(new StockAllocation(itemId, level.warehouseId(), level.quantity()));
+            }
+            return levels;
+        }
+    }
+
+    private record Level(int warehouseId, int quantity) {
+    }
+}
@@ -2,51 +2,123 @@ package storeApplication.demo.util;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 @Component
 @Slf4j
 public class JwtUtil {
 
+    /** Claim carrying the user id, so requests need no user lookup */
+    public static final String USER_ID_CLAIM = "uid";
+
+    /** Claim carrying the user's roles, so authorization needs no lookup either */
+    public static final String ROLES_CLAIM = "roles";
+
     @Value("${jwt.secret:mySecretKey}")
     private String secret;
 
     @Value("${jwt.expiration:86400000}") // 24 hours
     private Long expiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${jwt.verified-cache.max-entries:10000}")
+    private int verifiedCacheMaxEntries;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // Token hash -> claims whose signature was already checked; entries are dropped once the token expires
+    private final Map<String, VerifiedToken> verified = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                    return size() > verifiedCacheMaxEntries;
+                }
+            });
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
     public String generateToken(String username) {
-        return Jwts.builder()
+        return generateToken(username, null);
+    }
+
+    public String generateToken(String username, Integer userId) {
+        return generateToken(username, userId, List.of());
+    }
+
+    public String generateToken(String username, Integer userId, List<String> roles) {
+        JwtBuilder builder = Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .setExpiration(new Date(System.currentTimeMillis() + expiration));
+        if (userId != null) {
+            builder.claim(USER_ID_CLAIM, userId);
+        }
+        if (!roles.isEmpty()) {
+            builder.claim(ROLES_CLAIM, roles);
+        }
+        return builder
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * Verified claims of a token, from the cache when it was seen before.
+     * Throws a {@link JwtException} for tokens that are malformed, forged or expired.
+     */
+    public Claims getVerifiedClaims(String token) {
+        if (token == null) {
+            throw new IllegalArgumentException("JWT token is missing");
+        }
+        String key = hash(token);
+        VerifiedToken cached = verified.get(key);
+        if (cached != null) {
+            if (cached.expiresAt() > System.currentTimeMillis()) {
+                return cached.claims();
+            }
+            verified.remove(key);
+        }
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+        verified.put(key, new VerifiedToken(claims, expiresAt));
+        return claims;
+    }
+
+    /**
+     * The id logout revokes a token by: its jti claim, or a hash of the token for tokens issued without one.
+     */
+    public static String tokenId(String token, Claims claims) {
+        return claims.getId() != null ? claims.getId() : "sha256:" + hash(token);
+    }
+
     public String getUsernameFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return getVerifiedClaims(token).getSubject();
     }
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
+            getVerifiedClaims(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             log.error("JWT token validation failed: {}", e.getMessage());
@@ -56,17 +128,22 @@ public class JwtUtil {
 
     public boolean isTokenExpired(String token) {
         try {
-            Date expiration = Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody()
-                    .getExpiration();
-            return expiration.before(new Date());
+            Date expiration = getVerifiedClaims(token).getExpiration();
+            return expiration != null && expiration.before(new Date());
         } catch (JwtException | IllegalArgumentException e) {
             return true;
         }
     }
-}
 
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
+    private record VerifiedToken(Claims claims, long expiresAt) {
+    }
+}
@@ -0,0 +1,86 @@
+package storeApplication.demo.config;
+
+import com.example.contracts.DeliveryStatusMessage;
+import com.example.contracts.EmailMessage;
+import com.example.contracts.PaymentRequestMessage;
+import com.example.contracts.codec.CborMessageConverter;
+import com.example.contracts.codec.ContractMessageConverter;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CBOR against JSON and the contract codecs against Jackson databind, for the three busiest messages.
+ * Also checks the negotiating converter reads both forms from either kind of producer, which is what
+ * makes the rollout safe. Timings are in MessageCodecBenchmark.
+ */
+class MessageCodecTests {
+
+    private static final List<Object> MESSAGES = List.of(
+            new PaymentRequestMessage(1234567, "ACC-CUSTOMER-0001", "ACC-STORE-0001", 249.99,
+                    "7d3f1c2e-5a4b-4c8e-9f61-2b0a9d8e7c65"),
+            new DeliveryStatusMessage(1234567, "in_transit", "Package is in transit to destination",
+                    1_760_000_000_000L, "TRK_9F3A21C7", 3L),
+            new EmailMessage("1234567", "customer@example.com", "Your package has been picked up",
+                    "Dear Alex,\n\nYour order #1234567 (Mechanical keyboard) has been picked up and is on its way!"
+                            + "\n\nTracking ID: TRK_9F3A21C7\n\nBest regards,\nDeliveryCo Team", "picked_up"));
+
+    @Test
+    void cborIsSmallerOnTheWire() {
+        Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter();
+        CborMessageConverter cbor = new CborMessageConverter();
+
+        for (Object payload : MESSAGES) {
+            Message asJson = json.toMessage(payload, new MessageProperties());
+            Message asCbor = cbor.toMessage(payload, new MessageProperties());
+            assertEquals(payload, cbor.fromMessage(asCbor));
+            assertTrue(asCbor.getBody().length < asJson.getBody().length,
+                    payload.getClass().getSimpleName() + " should be smaller as CBOR");
+        }
+    }
+
+    @Test
+    void contractCodecsWriteWhatDatabindReads() {
+        List<MessageConverter> databind = List.of(new Jackson2JsonMessageConverter(), new CborMessageConverter());
+        List<MessageConverter> contracts = List.of(ContractMessageConverter.json(new Jackson2JsonMessageConverter()),
+                ContractMessageConverter.cbor(new CborMessageConverter()));
+
+        for (int format = 0; format < 2; format++) {
+            for (Object payload : MESSAGES) {
+                // Same wire format either way: each side reads what the other wrote
+                Message fromContract = contracts.get(format).toMessage(payload, new MessageProperties());
+                Message fromDatabind = databind.get(format).toMessage(payload, new MessageProperties());
+                assertEquals(payload, databind.get(format).fromMessage(fromContract));
+                assertEquals(payload, contracts.get(format).fromMessage(fromDatabind));
+            }
+        }
+    }
+
+    @Test
+    void consumersAcceptBothFormsWhateverTheyPublish() {
+        for (String codec : List.of("json", "cbor")) {
+            RabbitMQConfig config = new RabbitMQConfig();
+            ReflectionTestUtils.setField(config, "codec", codec);
+            MessageConverter converter = config.messageConverter();
+
+            for (Object payload : MESSAGES) {
+                Message asJson = new Jackson2JsonMessageConverter().toMessage(payload, new MessageProperties());
+                Message asCbor = new CborMessageConverter().toMessage(payload, new MessageProperties());
+                assertEquals(payload, converter.fromMessage(asJson));
+                assertEquals(payload, converter.fromMessage(asCbor));
+            }
+
+            Message sent = converter.toMessage(MESSAGES.get(0), new MessageProperties());
+            String expected = codec.equals("cbor") ? CborMessageConverter.CONTENT_TYPE : MessageProperties.CONTENT_TYPE_JSON;
+            assertEquals(expected, sent.getMessageProperties().getContentType());
+        }
+    }
+}
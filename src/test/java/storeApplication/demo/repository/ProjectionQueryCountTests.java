@@ -0,0 +1,161 @@
+package storeApplication.demo.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import storeApplication.demo.dto.ItemResponse;
+import storeApplication.demo.dto.OrderSummary;
+import storeApplication.demo.dto.WarehouseResponse;
+import storeApplication.demo.dto.WarehouseStockResponse;
+import storeApplication.demo.model.Item;
+import storeApplication.demo.model.Order;
+import storeApplication.demo.model.User;
+import storeApplication.demo.model.Warehouse;
+import storeApplication.demo.model.WarehouseStock;
+import storeApplication.demo.model.WarehouseStockId;
+import storeApplication.demo.model.enums.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The read endpoints' projections must cost one SQL statement per request, however many rows
+ * and relations they cover. Counted with Hibernate statistics against an in-memory H2 database.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+class ProjectionQueryCountTests {
+
+    private static final int ITEMS = 20;
+    private static final int WAREHOUSES = 5;
+    private static final int ORDERS = 30;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private WarehouseStockRepository warehouseStockRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private Statistics statistics;
+    private Integer userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("buyer");
+        user.setEmailAddress("buyer@example.com");
+        user.setPassword("secret");
+        userId = entityManager.persist(user).getId();
+
+        List<Item> items = new ArrayList<>();
+        for (int i = 1; i <= ITEMS; i++) {
+            Item item = new Item();
+            item.setName("item-" + i);
+            item.setPrice(BigDecimal.valueOf(i));
+            items.add(entityManager.persist(item));
+        }
+        for (int w = 1; w <= WAREHOUSES; w++) {
+            Warehouse warehouse = new Warehouse();
+            warehouse.setName("warehouse-" + w);
+            Integer warehouseId = entityManager.persist(warehouse).getId();
+            for (Item item : items) {
+                WarehouseStock stock = new WarehouseStock();
+                stock.setId(new WarehouseStockId(item.getId(), warehouseId));
+                stock.setQuantity(10);
+                entityManager.persist(stock);
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < ORDERS; i++) {
+            Item item = items.get(i % ITEMS);
+            entityManager.persist(new Order(null, userId, item.getId(), 1, item.getPrice(), OrderStatus.PENDING,
+                    now.minusMinutes(i), false, null, null));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void itemListIsOneStatement() {
+        List<ItemResponse> items = itemRepository.findAllResponses();
+
+        assertEquals(ITEMS, items.size());
+        assertStatements(1);
+    }
+
+    @Test
+    void warehouseListIsOneStatement() {
+        List<WarehouseResponse> warehouses = warehouseRepository.findAllResponses();
+
+        assertEquals(WAREHOUSES, warehouses.size());
+        assertStatements(1);
+    }
+
+    @Test
+    void warehouseStockListJoinsItemAndWarehouseNamesInOneStatement() {
+        List<WarehouseStockResponse> stock = warehouseStockRepository.findAllResponses();
+
+        assertEquals(ITEMS * WAREHOUSES, stock.size());
+        assertTrue(stock.stream().allMatch(row -> row.getItemName() != null && row.getWarehouseName() != null));
+        assertStatements(1);
+    }
+
+    @Test
+    void everyOrderPageIsOneStatement() {
+        List<OrderSummary> first = orderRepository.findFirstPageByUser(userId, PageRequest.of(0, 10));
+        assertStatements(1);
+
+        OrderSummary last = first.get(first.size() - 1);
+        statistics.clear();
+        List<OrderSummary> second = orderRepository.findPageByUserAfter(userId, last.getCreatedAt(), last.getId(),
+                PageRequest.of(0, 10));
+
+        assertEquals(10, second.size());
+        assertTrue(second.get(0).getCreatedAt().isBefore(last.getCreatedAt()));
+        assertStatements(1);
+    }
+
+    @Test
+    void loadingOrderEntitiesSelectsTheirRelationsOneByOne() {
+        // The baseline the projections replace: eager @ManyToOne relations are fetched per distinct item and user
+        List<Order> orders = orderRepository.findAll();
+
+        assertEquals(ORDERS, orders.size());
+        assertTrue(statistics.getPrepareStatementCount() > ITEMS,
+                "expected N+1 selects, got " + statistics.getPrepareStatementCount());
+    }
+
+    private void assertStatements(long expected) {
+        assertEquals(expected, statistics.getPrepareStatementCount(),
+                "SQL statements executed: " + statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,31 @@
+package storeApplication.demo.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTests {
+
+    @Test
+    void everyAddedValueIsFound() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+        // Three times the expected entries: the false-positive rate degrades, false negatives never appear
+        var added = IntStream.range(0, 3_000).mapToObj(i -> UUID.randomUUID().toString()).toList();
+        added.forEach(filter::put);
+
+        added.forEach(value -> assertTrue(filter.mightContain(value), "false negative for " + value));
+    }
+
+    @Test
+    void falsePositivesStayNearTheConfiguredRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.put("revoked-" + i));
+
+        long hits = IntStream.range(0, 100_000).filter(i -> filter.mightContain("live-" + i)).count();
+
+        assertTrue(hits < 3_000, "false-positive rate " + hits / 100_000.0);
+    }
+}
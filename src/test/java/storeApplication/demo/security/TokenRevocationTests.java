@@ -0,0 +1,111 @@
+package storeApplication.demo.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import storeApplication.demo.controller.AuthController;
+import storeApplication.demo.repository.RevokedTokenRepository;
+import storeApplication.demo.repository.UserRepository;
+import storeApplication.demo.service.AuthService;
+import storeApplication.demo.service.LoginService;
+import storeApplication.demo.util.JwtUtil;
+
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Logout against the real revocation table: the token stops working on the node that logged it out
+ * at once, and on every other node after its next sync.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TokenRevocationTests {
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private JwtUtil jwtUtil;
+    private TokenRevocationService otherNodeRevocations;
+    private MockMvc node;
+    private MockMvc otherNode;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "test-secret-test-secret-test-secret-0123");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 60_000L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxEntries", 100);
+        jwtUtil.init();
+
+        TokenRevocationService revocations = revocations();
+        otherNodeRevocations = revocations();
+        AuthController authController = new AuthController(mock(AuthService.class), mock(LoginService.class),
+                jwtUtil, revocations);
+        node = node(revocations, authController, new ProbeController());
+        otherNode = node(otherNodeRevocations, new ProbeController());
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void loggedOutTokenIsRefused() throws Exception {
+        String bearer = "Bearer " + jwtUtil.generateToken("alice", 7);
+        node.perform(get("/probe").header("Authorization", bearer)).andExpect(status().isOk());
+
+        node.perform(post("/api/auth/logout").header("Authorization", bearer)).andExpect(status().isOk());
+
+        node.perform(get("/probe").header("Authorization", bearer)).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void otherNodesRefuseItAfterTheirNextSync() throws Exception {
+        String bearer = "Bearer " + jwtUtil.generateToken("bob", 8);
+        node.perform(post("/api/auth/logout").header("Authorization", bearer)).andExpect(status().isOk());
+
+        otherNodeRevocations.sync();
+
+        otherNode.perform(get("/probe").header("Authorization", bearer)).andExpect(status().isUnauthorized());
+    }
+
+    private TokenRevocationService revocations() {
+        TokenRevocationService service = new TokenRevocationService(revokedTokenRepository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "expectedEntries", 1_000);
+        ReflectionTestUtils.setField(service, "falsePositiveRate", 0.01);
+        ReflectionTestUtils.setField(service, "syncOverlapMs", 2_000L);
+        service.init();
+        return service;
+    }
+
+    private MockMvc node(TokenRevocationService revocations, Object... controllers) {
+        AuthenticatedUserService users = new AuthenticatedUserService(jwtUtil, revocations, userRepository);
+        return MockMvcBuilders.standaloneSetup(controllers)
+                .addFilters(new JwtAuthenticationFilter(users))
+                .setCustomArgumentResolvers(new AuthenticatedUserArgumentResolver())
+                .build();
+    }
+
+    @RestController
+    static class ProbeController {
+        @GetMapping("/probe")
+        String probe(AuthenticatedUser user) {
+            return user.getUsername();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package storeApplication.demo.service;
+
+import org.junit.jupiter.api.Test;
+import storeApplication.demo.dto.StockAllocation;
+import storeApplication.demo.repository.WarehouseStockRepository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The greedy and fewest-warehouses strategies on synthetic stock (100 items, 20 warehouses).
+ * Fewer warehouses per order means fewer OrderAllocation rows and fewer delivery requests.
+ * Timings are in AllocationStrategyBenchmark.
+ */
+class AllocationStrategyTests {
+
+    private static final int ITEMS = 100;
+    private static final int WAREHOUSES = 20;
+    private static final int ORDERS = 500;
+
+    @Test
+    void optimizedStrategyUsesFewerWarehouses() {
+        Random random = new Random(42);
+        List<StockAllocation> stock = new ArrayList<>();
+        for (int item = 1; item <= ITEMS; item++) {
+            for (int warehouse = 1; warehouse <= WAREHOUSES; warehouse++) {
+                // sparse, uneven stock: each item is kept in roughly a third of the warehouses
+                if (random.nextInt(3) == 0) {
+                    stock.add(new StockAllocation(item, warehouse, 1 + random.nextInt(20)));
+                }
+            }
+        }
+        WarehouseStockIndex index = new WarehouseStockIndex(mock(WarehouseStockRepository.class));
+        index.load(stock);
+        AllocationStrategy greedy = new GreedyAllocationStrategy(index);
+        AllocationStrategy optimized = new FewestWarehousesAllocationStrategy(index);
+
+        long greedyWarehouses = 0;
+        long optimizedWarehouses = 0;
+        for (int i = 0; i < ORDERS; i++) {
+            Map<Integer, Integer> lines = new LinkedHashMap<>();
+            int lineCount = 1 + random.nextInt(5);
+            while (lines.size() < lineCount) {
+                lines.put(1 + random.nextInt(ITEMS), 1 + random.nextInt(8));
+            }
+            List<StockAllocation> greedyPlan = greedy.plan(lines);
+            List<StockAllocation> optimizedPlan = optimized.plan(lines);
+
+            assertEquals(units(greedyPlan), units(optimizedPlan), "both strategies should cover the same units");
+            greedyWarehouses += warehouses(greedyPlan);
+            optimizedWarehouses += warehouses(optimizedPlan);
+        }
+        assertTrue(optimizedWarehouses <= greedyWarehouses,
+                "optimized strategy should not ship from more warehouses than greedy");
+    }
+
+    private static int units(List<StockAllocation> plan) {
+        return plan.stream().mapToInt(StockAllocation::getQuantity).sum();
+    }
+
+    private static long warehouses(List<StockAllocation> plan) {
+        return plan.stream().map(StockAllocation::getWarehouseId).distinct().count();
+    }
+}
@@ -0,0 +1,140 @@
+package storeApplication.demo.service;
+
+import com.example.contracts.PaymentRequestMessage;
+import com.example.contracts.PaymentResponseMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import storeApplication.demo.config.RabbitMQConfig;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * What each kind of bank answer turns into, and whether the request is resent over AMQP.
+ */
+class BankClientTests {
+
+    private static final PaymentRequestMessage REQUEST =
+            new PaymentRequestMessage(42, "ACC-CUSTOMER-0001", "ACC-STORE-0001", 19.99, "payment-1");
+
+    private final OutboxService outboxService = mock(OutboxService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void bankAnswerIsReturned() {
+        BankClient client = client(request -> Mono.just(json(HttpStatus.OK,
+                "{\"orderId\":42,\"status\":\"SUCCESS\",\"transactionId\":\"tx-7\",\"message\":\"Payment successful\"}")));
+
+        PaymentResponseMessage response = client.submitPayment(REQUEST).block();
+
+        assertEquals("SUCCESS", response.status());
+        verify(outboxService, never()).enqueue(any(), any(), any());
+    }
+
+    @Test
+    void serverErrorFallsBackToTheQueue() {
+        BankClient client = client(request -> Mono.just(json(HttpStatus.INTERNAL_SERVER_ERROR, "{}")));
+
+        assertEquals(BankClient.PENDING, client.submitPayment(REQUEST).block().status());
+        verify(outboxService).enqueue(RabbitMQConfig.BANK_EXCHANGE, RabbitMQConfig.PAYMENT_REQUEST_ROUTING_KEY, REQUEST);
+    }
+
+    @Test
+    void refusedConnectionFallsBackToTheQueue() {
+        BankClient client = client(request -> Mono.error(new WebClientRequestException(new ConnectException("refused"),
+                HttpMethod.POST, URI.create("http://bank/api/bank/payments"), new HttpHeaders())));
+
+        assertEquals(BankClient.PENDING, client.submitPayment(REQUEST).block().status());
+        verify(outboxService).enqueue(RabbitMQConfig.BANK_EXCHANGE, RabbitMQConfig.PAYMENT_REQUEST_ROUTING_KEY, REQUEST);
+    }
+
+    @Test
+    void clientErrorIsRejectedWithoutResending() {
+        BankClient client = client(request -> Mono.just(json(HttpStatus.BAD_REQUEST, "{}")));
+
+        assertEquals(BankClient.REJECTED, client.submitPayment(REQUEST).block().status());
+        verify(outboxService, never()).enqueue(any(), any(), any());
+    }
+
+    @Test
+    void timeoutAwaitsTheOutcomeWithoutResending() {
+        BankClient client = client(request -> Mono.never());
+
+        assertEquals(BankClient.PENDING, client.submitPayment(REQUEST).block().status());
+        verify(outboxService, never()).enqueue(any(), any(), any());
+    }
+
+    @Test
+    void clientErrorsDoNotOpenTheBreaker() {
+        BankClient client = client(request -> Mono.just(json(HttpStatus.UNPROCESSABLE_ENTITY, "{}")));
+
+        for (int i = 0; i < 10; i++) {
+            client.submitPayment(REQUEST).block();
+        }
+
+        assertEquals(10, calls.get());
+    }
+
+    @Test
+    void openBreakerSendsOverTheQueueWithoutCallingTheBank() {
+        BankClient client = client(request -> Mono.just(json(HttpStatus.SERVICE_UNAVAILABLE, "{}")));
+
+        // Window of 4: opens after 2 failed calls
+        for (int i = 0; i < 5; i++) {
+            assertEquals(BankClient.PENDING, client.submitPayment(REQUEST).block().status());
+        }
+
+        assertEquals(2, calls.get());
+        verify(outboxService, times(5)).enqueue(eq(RabbitMQConfig.BANK_EXCHANGE), any(), any());
+    }
+
+    @Test
+    void everyCallOfAnOutcomeIsRecordedOnTheSameTimer() {
+        BankClient client = client(request -> Mono.just(json(HttpStatus.OK,
+                "{\"orderId\":42,\"status\":\"SUCCESS\",\"transactionId\":\"tx-7\",\"message\":\"Payment successful\"}")));
+
+        for (int i = 0; i < 3; i++) {
+            client.submitPayment(REQUEST).block();
+        }
+
+        assertEquals(7, meterRegistry.find("bank.payment.latency").timers().size());
+        assertEquals(3, meterRegistry.get("bank.payment.latency").tag("outcome", "success").timer().count());
+    }
+
+    private BankClient client(ExchangeFunction bank) {
+        WebClient webClient = WebClient.builder()
+                .baseUrl("http://bank")
+                .exchangeFunction(request -> {
+                    calls.incrementAndGet();
+                    return bank.exchange(request);
+                })
+                .build();
+        return new BankClient(webClient, outboxService, meterRegistry, 10, 200, 4, 0.5, 60_000);
+    }
+
+    private static ClientResponse json(HttpStatus status, String body) {
+        return ClientResponse.create(status)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build();
+    }
+}
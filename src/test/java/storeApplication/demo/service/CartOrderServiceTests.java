@@ -0,0 +1,183 @@
+package storeApplication.demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import storeApplication.demo.dto.CartOrderRequest;
+import storeApplication.demo.dto.OrderLineSummary;
+import storeApplication.demo.dto.OrderSummary;
+import storeApplication.demo.model.Item;
+import storeApplication.demo.model.Order;
+import storeApplication.demo.model.OrderLine;
+import storeApplication.demo.model.User;
+import storeApplication.demo.model.Warehouse;
+import storeApplication.demo.model.WarehouseStock;
+import storeApplication.demo.model.WarehouseStockId;
+import storeApplication.demo.model.enums.OrderStatus;
+import storeApplication.demo.repository.ItemRepository;
+import storeApplication.demo.repository.OrderAllocationRepository;
+import storeApplication.demo.repository.OrderLineRepository;
+import storeApplication.demo.repository.OrderRepository;
+import storeApplication.demo.repository.UserRepository;
+import storeApplication.demo.repository.WarehouseRepository;
+import storeApplication.demo.repository.WarehouseStockRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Cart orders against H2: how the lines are split over warehouses, what the header holds,
+ * and that a cart that cannot be filled leaves no order, no lines and no stock taken.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CartOrderServiceTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private WarehouseStockRepository warehouseStockRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+
+    @Autowired
+    private OrderAllocationRepository orderAllocationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CartOrderService service;
+    private Integer userId;
+    private List<Integer> warehouseIds;
+
+    @BeforeEach
+    void setUp() {
+        WarehouseStockIndex index = new WarehouseStockIndex(warehouseStockRepository);
+        StockReservationService reservations = new StockReservationService(warehouseStockRepository,
+                orderAllocationRepository, new GreedyAllocationStrategy(index), index);
+        service = new CartOrderService(orderRepository, orderLineRepository, itemRepository, reservations,
+                mock(HotSkuService.class), mock(ProductCatalogCache.class), transactionManager);
+        User user = new User();
+        user.setUsername("buyer-" + System.nanoTime());
+        user.setEmailAddress("buyer@example.com");
+        user.setPassword("secret");
+        userId = userRepository.save(user).getId();
+        warehouseIds = new ArrayList<>();
+        for (int w = 0; w < 2; w++) {
+            Warehouse warehouse = new Warehouse();
+            warehouse.setName("warehouse-" + w);
+            warehouseIds.add(warehouseRepository.save(warehouse).getId());
+        }
+    }
+
+    @Test
+    void linesAreSplitPerWarehouseAndTheHeaderHoldsTheTotal() {
+        Integer keyboard = item("12.50", 3, 2);
+        Integer mouse = item("4.00", 0, 5);
+
+        Order order = service.createCartOrder(userId, List.of(
+                new CartOrderRequest.Line(keyboard, 4),
+                new CartOrderRequest.Line(mouse, 1)));
+
+        assertNull(order.getItemId());
+        assertNull(order.getQuantity());
+        assertEquals(0, new BigDecimal("54.00").compareTo(order.getPrice()));
+        assertEquals(OrderStatus.PENDING, order.getStatus());
+
+        List<OrderLine> lines = service.getLines(order.getId()).stream()
+                .sorted(Comparator.comparing(OrderLine::getItemId).thenComparing(OrderLine::getWarehouseId))
+                .toList();
+        assertEquals(3, lines.size());
+        assertLine(lines.get(0), keyboard, warehouseIds.get(0), 3);
+        assertLine(lines.get(1), keyboard, warehouseIds.get(1), 1);
+        assertLine(lines.get(2), mouse, warehouseIds.get(1), 1);
+        assertEquals(List.of(0, 1), levels(keyboard));
+        assertEquals(List.of(0, 4), levels(mouse));
+
+        List<OrderLineSummary> summary = OrderSummary.from(order, lines).getLines();
+        assertEquals(2, summary.size());
+        assertEquals(4, summary.get(0).getQuantity());
+        assertEquals(1, summary.get(1).getQuantity());
+    }
+
+    @Test
+    void aLineThatCannotBeFilledRollsBackTheWholeCart() {
+        Integer keyboard = item("12.50", 3, 2);
+        Integer mouse = item("4.00", 0, 1);
+        long ordersBefore = orderRepository.count();
+
+        assertThrows(RuntimeException.class, () -> service.createCartOrder(userId, List.of(
+                new CartOrderRequest.Line(keyboard, 4),
+                new CartOrderRequest.Line(mouse, 2))));
+
+        assertEquals(ordersBefore, orderRepository.count());
+        assertEquals(List.of(3, 2), levels(keyboard));
+        assertEquals(List.of(0, 1), levels(mouse));
+    }
+
+    @Test
+    void cancellingReturnsEveryLineToItsWarehouse() {
+        Integer keyboard = item("12.50", 3, 2);
+        Integer mouse = item("4.00", 0, 5);
+        Order order = service.createCartOrder(userId, List.of(
+                new CartOrderRequest.Line(keyboard, 5),
+                new CartOrderRequest.Line(mouse, 2)));
+
+        Order cancelled = service.cancelCartOrder(order.getId());
+
+        assertEquals(OrderStatus.CANCELLED, cancelled.getStatus());
+        assertEquals(List.of(3, 2), levels(keyboard));
+        assertEquals(List.of(0, 5), levels(mouse));
+    }
+
+    private Integer item(String price, int... perWarehouse) {
+        Item item = new Item();
+        item.setName("item");
+        item.setPrice(new BigDecimal(price));
+        Integer itemId = itemRepository.save(item).getId();
+        for (int w = 0; w < perWarehouse.length; w++) {
+            WarehouseStock stock = new WarehouseStock();
+            stock.setId(new WarehouseStockId(itemId, warehouseIds.get(w)));
+            stock.setQuantity(perWarehouse[w]);
+            warehouseStockRepository.save(stock);
+        }
+        return itemId;
+    }
+
+    private List<Integer> levels(Integer itemId) {
+        return warehouseIds.stream()
+                .map(warehouseId -> warehouseStockRepository.findQuantity(itemId, warehouseId).orElse(0))
+                .toList();
+    }
+
+    private static void assertLine(OrderLine line, Integer itemId, Integer warehouseId, int quantity) {
+        assertEquals(itemId, line.getItemId());
+        assertEquals(warehouseId, line.getWarehouseId());
+        assertEquals(quantity, line.getQuantity());
+    }
+}
@@ -0,0 +1,126 @@
+package storeApplication.demo.service;
+
+import com.example.contracts.PaymentRequestMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import storeApplication.demo.config.RabbitMQConfig;
+import storeApplication.demo.model.OutboxMessage;
+import storeApplication.demo.repository.OutboxMessageRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The outbox against a real table: rows commit or roll back with the caller's transaction, and the relay
+ * marks a batch sent only once the broker confirmed all of it.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxTests {
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final RabbitOperations channel = mock(RabbitOperations.class);
+    private final List<String> published = new ArrayList<>();
+    private OutboxService outboxService;
+    private OutboxRelay relay;
+    private TransactionTemplate transactionTemplate;
+    private boolean brokerAcks;
+
+    @BeforeEach
+    void setUp() {
+        outboxMessageRepository.deleteAll();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        outboxService = new OutboxService(outboxMessageRepository);
+        relay = new OutboxRelay(outboxMessageRepository, rabbitTemplate, transactionManager, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(relay, "batchSize", 2);
+        ReflectionTestUtils.setField(relay, "confirmTimeoutMs", 1_000L);
+        brokerAcks = true;
+
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation ->
+                invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(channel));
+        doAnswer(invocation -> {
+            Message message = invocation.getArgument(2);
+            CorrelationData correlation = invocation.getArgument(3);
+            published.add(message.getMessageProperties().getMessageId());
+            correlation.getFuture().complete(new CorrelationData.Confirm(brokerAcks, brokerAcks ? null : "nack"));
+            return null;
+        }).when(channel).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    @Test
+    void messageRollsBackWithTheOrderChange() {
+        transactionTemplate.executeWithoutResult(status -> {
+            enqueuePayment(1);
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status -> enqueuePayment(2));
+
+        List<OutboxMessage> rows = outboxMessageRepository.findAll();
+        assertEquals(1, rows.size());
+        assertTrue(rows.get(0).getPayload().contains("\"orderId\":2"));
+    }
+
+    @Test
+    void relaySendsEveryBatchAndMarksItSent() {
+        for (int orderId = 1; orderId <= 5; orderId++) {
+            enqueuePayment(orderId);
+        }
+
+        relay.relay();
+
+        assertEquals(5, published.size());
+        assertTrue(outboxMessageRepository.findAll().stream().allMatch(row -> row.getSentAt() != null));
+    }
+
+    @Test
+    void unconfirmedBatchStaysUnsent() {
+        enqueuePayment(1);
+        enqueuePayment(2);
+        brokerAcks = false;
+
+        relay.relay();
+
+        assertEquals(2, published.size());
+        assertTrue(outboxMessageRepository.findAll().stream().allMatch(row -> row.getSentAt() == null));
+
+        brokerAcks = true;
+        relay.relay();
+
+        assertEquals(4, published.size(), "the batch is sent again");
+        assertTrue(outboxMessageRepository.findAll().stream().allMatch(row -> row.getSentAt() != null));
+    }
+
+    private void enqueuePayment(int orderId) {
+        outboxService.enqueue(RabbitMQConfig.BANK_EXCHANGE, RabbitMQConfig.PAYMENT_REQUEST_ROUTING_KEY,
+                new PaymentRequestMessage(orderId, "ACC-CUSTOMER-0001", "ACC-STORE-0001", 10.0, "payment-" + orderId));
+    }
+}
@@ -0,0 +1,168 @@
+package storeApplication.demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import storeApplication.demo.dto.StockAllocation;
+import storeApplication.demo.model.Item;
+import storeApplication.demo.model.Warehouse;
+import storeApplication.demo.model.WarehouseStock;
+import storeApplication.demo.model.WarehouseStockId;
+import storeApplication.demo.repository.ItemRepository;
+import storeApplication.demo.repository.OrderAllocationRepository;
+import storeApplication.demo.repository.WarehouseRepository;
+import storeApplication.demo.repository.WarehouseStockRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The reservation engine against the real conditional decrements on an in-memory H2 database.
+ * Nothing runs in a test transaction, so every decrement commits and concurrent buyers really compete.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockReservationServiceTests {
+
+    private static final int WAREHOUSES = 3;
+    private static final int STOCK_PER_WAREHOUSE = 40;
+    private static final int BUYERS = 8;
+    private static final int ORDERS = 200;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    @Autowired
+    private WarehouseStockRepository warehouseStockRepository;
+
+    @Autowired
+    private OrderAllocationRepository orderAllocationRepository;
+
+    private StockReservationService service;
+    private List<Integer> warehouseIds;
+
+    @BeforeEach
+    void setUp() {
+        WarehouseStockIndex index = new WarehouseStockIndex(warehouseStockRepository);
+        service = new StockReservationService(warehouseStockRepository, orderAllocationRepository,
+                new GreedyAllocationStrategy(index), index);
+        warehouseIds = new ArrayList<>();
+        for (int w = 0; w < WAREHOUSES; w++) {
+            Warehouse warehouse = new Warehouse();
+            warehouse.setName("warehouse-" + w);
+            warehouseIds.add(warehouseRepository.save(warehouse).getId());
+        }
+    }
+
+    @Test
+    void concurrentBuyersNeverOversell() throws Exception {
+        Integer itemId = itemWithStock(STOCK_PER_WAREHOUSE, STOCK_PER_WAREHOUSE, STOCK_PER_WAREHOUSE);
+        AtomicInteger attempted = new AtomicInteger();
+        AtomicInteger reservedUnits = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(BUYERS);
+
+        List<Future<?>> buyers = new ArrayList<>();
+        for (int b = 0; b < BUYERS; b++) {
+            buyers.add(pool.submit(() -> {
+                start.await();
+                int attempt;
+                while ((attempt = attempted.incrementAndGet()) <= ORDERS) {
+                    int quantity = 1 + attempt % 3;
+                    List<StockAllocation> allocations;
+                    try {
+                        allocations = service.reserve(itemId, quantity);
+                    } catch (RuntimeException soldOut) {
+                        continue;
+                    }
+                    assertEquals(quantity, allocations.stream().mapToInt(StockAllocation::getQuantity).sum());
+                    reservedUnits.addAndGet(quantity);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+        for (Future<?> buyer : buyers) {
+            buyer.get(); // rethrows a failed assertion of that buyer
+        }
+
+        List<Integer> levels = levels(itemId);
+        levels.forEach(level -> assertTrue(level >= 0, "warehouse stock went negative: " + levels));
+        int left = levels.stream().mapToInt(Integer::intValue).sum();
+        assertEquals(WAREHOUSES * STOCK_PER_WAREHOUSE, left + reservedUnits.get(), "units were oversold or lost");
+    }
+
+    @Test
+    void spreadsAnOrderOverWarehouses() {
+        Integer itemId = itemWithStock(3, 2, 0);
+
+        List<StockAllocation> allocations = service.reserve(itemId, 4);
+
+        assertEquals(4, allocations.stream().mapToInt(StockAllocation::getQuantity).sum());
+        assertEquals(2, allocations.size());
+        assertEquals(List.of(0, 1, 0), levels(itemId));
+    }
+
+    @Test
+    void shortfallReleasesWhatWasTaken() {
+        Integer itemId = itemWithStock(3, 2, 0);
+
+        assertThrows(RuntimeException.class, () -> service.reserve(itemId, 6));
+
+        assertEquals(List.of(3, 2, 0), levels(itemId));
+    }
+
+    @Test
+    void releaseReturnsUnitsToTheirWarehouses() {
+        Integer itemId = itemWithStock(3, 2, 0);
+        List<StockAllocation> allocations = service.reserve(itemId, 5);
+        assertEquals(List.of(0, 0, 0), levels(itemId));
+
+        service.release(allocations);
+
+        assertEquals(List.of(3, 2, 0), levels(itemId));
+    }
+
+    private Integer itemWithStock(int... perWarehouse) {
+        Item item = new Item();
+        item.setName("item");
+        item.setPrice(BigDecimal.TEN);
+        Integer itemId = itemRepository.save(item).getId();
+        for (int w = 0; w < WAREHOUSES; w++) {
+            WarehouseStock stock = new WarehouseStock();
+            stock.setId(new WarehouseStockId(itemId, warehouseIds.get(w)));
+            stock.setQuantity(perWarehouse[w]);
+            warehouseStockRepository.save(stock);
+        }
+        return itemId;
+    }
+
+    // Stock per warehouse, in the order the warehouses were created
+    private List<Integer> levels(Integer itemId) {
+        return warehouseIds.stream()
+                .map(warehouseId -> warehouseStockRepository.findQuantity(itemId, warehouseId).orElse(0))
+                .toList();
+    }
+}
@@ -0,0 +1,38 @@
+package storeApplication.demo.util;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtUtilTests {
+
+    private static final String SECRET = "mySecretKey123456789012345678901234567890";
+
+    @Test
+    void cacheNeverServesExpiredOrForgedTokens() {
+        JwtUtil jwtUtil = jwtUtil(3_600_000L);
+        String token = jwtUtil.generateToken("alice");
+        assertEquals("alice", jwtUtil.getUsernameFromToken(token));
+        assertEquals("alice", jwtUtil.getUsernameFromToken(token));
+
+        String forged = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        assertFalse(jwtUtil.validateToken(forged));
+
+        JwtUtil shortLived = jwtUtil(-1_000L);
+        String expired = shortLived.generateToken("bob");
+        assertThrows(ExpiredJwtException.class, () -> shortLived.getUsernameFromToken(expired));
+    }
+
+    private static JwtUtil jwtUtil(long expiration) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", expiration);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxEntries", 10_000);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+}